@@ -1,4 +1,4 @@
-import React, { useState, useContext, useEffect } from 'react';
+import React, { useState, useContext, useEffect, useRef } from 'react';
 import axios from 'axios';
 import { AuthContext } from '../context/AuthContext';
 import './Checkout.css';
@@ -36,6 +36,8 @@ const Checkout = ({ cart, getTotalAmount, clearCart, onSuccess, onCancel }) => {
   const [success, setSuccess] = useState(false);
   const [orderId, setOrderId] = useState(null);
   const [validationErrors, setValidationErrors] = useState({});
+  // Resubmitting the same order reuses its key, so a retry after a lost response cannot place it twice
+  const idempotencyRef = useRef({ payload: null, key: null });
 
   useEffect(() => {
     if (user) {
@@ -104,6 +106,26 @@ const Checkout = ({ cart, getTotalAmount, clearCart, onSuccess, onCancel }) => {
   const getShipping = () => getTotalAmount() > 100 ? 0 : 10;
   const getFinalTotal = () => getSubtotal() + getTax() + getShipping();
 
+  // Checks every cart line against the current catalog in one request
+  const validateCart = async () => {
+    const ids = cart.map(item => item.id).join(',');
+    const response = await axios.get(`http://localhost:8081/api/products/batch?ids=${ids}`);
+    const problems = [];
+    response.data.items.forEach((lookup, index) => {
+      const item = cart[index];
+      if (!lookup.found) {
+        problems.push(`${item.name} is no longer sold`);
+      } else if (!lookup.product.available) {
+        problems.push(`${item.name} is currently unavailable`);
+      } else if (lookup.product.availableToSell < item.quantity) {
+        problems.push(`Only ${lookup.product.availableToSell} of ${item.name} left in stock`);
+      } else if (lookup.product.price !== item.price) {
+        problems.push(`The price of ${item.name} changed to $${lookup.product.price.toFixed(2)}`);
+      }
+    });
+    return problems;
+  };
+
   const handleSubmit = async (e) => {
     e.preventDefault();
     
@@ -116,6 +138,12 @@ const Checkout = ({ cart, getTotalAmount, clearCart, onSuccess, onCancel }) => {
     setError(null);
 
     try {
+      const cartProblems = await validateCart();
+      if (cartProblems.length > 0) {
+        setError(cartProblems.join('. '));
+        return;
+      }
+
       // Combine address fields
       const fullAddress = `${formData.shippingAddress}, ${formData.city}, ${formData.zipCode}`;
       
@@ -133,7 +161,13 @@ const Checkout = ({ cart, getTotalAmount, clearCart, onSuccess, onCancel }) => {
         }))
       };
 
-      const orderResponse = await axios.post('http://localhost:8082/api/orders', orderData);
+      const payload = JSON.stringify(orderData);
+      if (idempotencyRef.current.payload !== payload) {
+        idempotencyRef.current = { payload, key: crypto.randomUUID() };
+      }
+      const orderResponse = await axios.post('http://localhost:8082/api/orders', orderData, {
+        headers: { 'Idempotency-Key': idempotencyRef.current.key }
+      });
       const newOrderId = orderResponse.data.id;
       setOrderId(newOrderId);
 
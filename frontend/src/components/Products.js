@@ -25,9 +25,11 @@ const Products = ({ addToCart, cart }) => {
   const [selectedCategory, setSelectedCategory] = useState('All');
   const [sortBy, setSortBy] = useState('name');
   const [viewMode, setViewMode] = useState('grid'); // grid or list
+  const [facets, setFacets] = useState(null);
 
   useEffect(() => {
     fetchProducts();
+    fetchFacets();
   }, []);
 
   useEffect(() => {
@@ -46,6 +48,16 @@ const Products = ({ addToCart, cart }) => {
     }
   };
 
+  const fetchFacets = async () => {
+    try {
+      const response = await axios.get('http://localhost:8081/api/products/facets');
+      setFacets(response.data);
+    } catch (err) {
+      // Fall back to categories derived from the loaded products
+      setFacets(null);
+    }
+  };
+
   const filterAndSortProducts = () => {
     let filtered = [...products];
 
@@ -82,8 +94,13 @@ const Products = ({ addToCart, cart }) => {
   };
 
   const getCategories = () => {
-    const categories = ['All', ...new Set(products.map(p => p.category))];
-    return categories;
+    if (facets) {
+      return [
+        { name: 'All', count: facets.totalProducts },
+        ...facets.categories.map(facet => ({ name: facet.category, count: facet.productCount }))
+      ];
+    }
+    return ['All', ...new Set(products.map(p => p.category))].map(name => ({ name }));
   };
 
   const isInCart = (productId) => {
@@ -170,7 +187,9 @@ const Products = ({ addToCart, cart }) => {
               className="filter-select"
             >
               {getCategories().map(category => (
-                <option key={category} value={category}>{category}</option>
+                <option key={category.name} value={category.name}>
+                  {category.count !== undefined ? `${category.name} (${category.count})` : category.name}
+                </option>
               ))}
             </select>
           </div>
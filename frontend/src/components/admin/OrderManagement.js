@@ -2,9 +2,13 @@ import React, { useState, useEffect } from 'react';
 import { orderServiceAxios } from '../../utils/axiosConfig';
 import { FiPackage, FiFilter, FiEdit } from 'react-icons/fi';
 
+const PAGE_SIZE = 50;
+
 const OrderManagement = () => {
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [filterStatus, setFilterStatus] = useState('ALL');
   const [selectedOrder, setSelectedOrder] = useState(null);
   const [showModal, setShowModal] = useState(false);
@@ -12,20 +16,32 @@ const OrderManagement = () => {
 
   useEffect(() => {
     fetchOrders();
-  }, []);
+  }, [filterStatus]);
+
+  // Orders are listed newest first, one keyset page at a time, filtered by status on the server
+  const fetchOrders = async (cursor = null) => {
+    const params = { size: PAGE_SIZE };
+    if (filterStatus !== 'ALL') params.status = filterStatus;
+    if (cursor) params.cursor = cursor;
 
-  const fetchOrders = async () => {
     try {
-      const response = await orderServiceAxios.get('/api/orders');
-      setOrders(response.data);
+      const response = await orderServiceAxios.get('/api/orders/page', { params });
+      setOrders(previous => cursor ? [...previous, ...response.data.items] : response.data.items);
+      setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
     } catch (error) {
       console.error('Error fetching orders:', error);
-      setOrders([]);
+      if (!cursor) setOrders([]);
     } finally {
       setLoading(false);
+      setLoadingMore(false);
     }
   };
 
+  const loadMore = () => {
+    setLoadingMore(true);
+    fetchOrders(nextCursor);
+  };
+
   const getStatusColor = (status) => {
     const colors = {
       PENDING: '#ffa500',
@@ -59,13 +75,11 @@ const OrderManagement = () => {
       alert(`Order #${selectedOrder.id} status updated to ${newStatus}`);
     } catch (error) {
       console.error('Error updating order status:', error);
-      alert('Failed to update order status');
+      alert(error.response?.data?.message || 'Failed to update order status');
     }
   };
 
-  const filteredOrders = filterStatus === 'ALL' 
-    ? orders 
-    : orders.filter(order => order.status === filterStatus);
+  const filteredOrders = orders;
 
   if (loading) {
     return <div className="loading">Loading orders...</div>;
@@ -75,7 +89,7 @@ const OrderManagement = () => {
     <div className="order-management">
       <div className="page-header">
         <h1><FiPackage size={32} /> Order Management</h1>
-        <p>Total Orders: {orders.length}</p>
+        <p>Showing {orders.length}{nextCursor ? '+' : ''} orders</p>
       </div>
 
       <div className="filter-bar">
@@ -151,6 +165,14 @@ const OrderManagement = () => {
         {filteredOrders.length === 0 && (
           <div className="no-data">No orders found</div>
         )}
+
+        {nextCursor && (
+          <div className="load-more">
+            <button className="btn btn-secondary" onClick={loadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
 
       {showModal && selectedOrder && (
@@ -0,0 +1,24 @@
+package com.ecommerce.orderservice.catalog;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The part of a product-service product that order-service keeps locally
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CatalogProduct {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Boolean available;
+    private Integer availableToSell;
+    private Long version;
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.orderservice.catalog;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerStartedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local, eventually consistent copy of the product catalog.
+ * It is bootstrapped from product-service's snapshot stream and then kept current from
+ * product change events on a queue of this instance's own. The queue goes away with the
+ * broker connection, so the snapshot is loaded again whenever consuming restarts, which
+ * covers the changes made while no queue was bound. Every entry carries the product's row
+ * version, and an older state never replaces a newer one, so the snapshot and the events
+ * can interleave in any order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogReplica {
+    
+    private static final String PRODUCT_CHANGES_LISTENER = "productChanges";
+    
+    private final WebClient.Builder webClientBuilder;
+    
+    @Value("${product.service.url}")
+    private String productServiceUrl;
+    
+    private final Map<Long, CatalogProduct> products = new ConcurrentHashMap<>();
+    // ids deleted while a snapshot is being loaded, so stale snapshot rows cannot bring them back
+    private final Set<Long> tombstones = ConcurrentHashMap.newKeySet();
+    
+    private volatile boolean ready;
+    private volatile boolean bootstrapping;
+    private volatile Disposable bootstrap;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public Optional<CatalogProduct> find(Long productId) {
+        return Optional.ofNullable(products.get(productId));
+    }
+    
+    public int size() {
+        return products.size();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void bootstrap() {
+        if (bootstrap != null) {
+            bootstrap.dispose();
+        }
+        bootstrapping = true;
+        AtomicLong loaded = new AtomicLong();
+        bootstrap = webClientBuilder.build()
+                .get()
+                .uri(productServiceUrl + "/api/products/snapshot")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(CatalogProduct.class)
+                .doOnNext(product -> {
+                    if (!tombstones.contains(product.getId())) {
+                        apply(product);
+                        loaded.incrementAndGet();
+                    }
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(2))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> log.warn("Catalog snapshot failed, retrying: {}",
+                                signal.failure().getMessage())))
+                .subscribe(null, error -> log.error("Catalog snapshot aborted: {}", error.getMessage()), () -> {
+                    bootstrapping = false;
+                    tombstones.clear();
+                    ready = true;
+                    log.info("Product catalog replica loaded {} products", loaded.get());
+                });
+    }
+    
+    /**
+     * The first consumer starts before the application is ready and its bootstrap; later
+     * starts follow a lost connection, with a new queue that missed what happened meanwhile
+     */
+    @EventListener
+    public void onConsumerStarted(AsyncConsumerStartedEvent event) {
+        if (bootstrap != null && event.getSource() instanceof AbstractMessageListenerContainer container
+                && PRODUCT_CHANGES_LISTENER.equals(container.getListenerId())) {
+            log.info("Product change consumer restarted, reloading the catalog snapshot");
+            bootstrap();
+        }
+    }
+    
+    @RabbitListener(id = PRODUCT_CHANGES_LISTENER, queues = "#{productChangesQueue.name}")
+    public void onProductChange(ProductChangeMessage message) {
+        if (ProductChangeMessage.CATALOG_RELOADED.equals(message.getChangeType())) {
+            log.info("Product catalog reloaded upstream, refreshing replica");
+            bootstrap();
+        } else if (ProductChangeMessage.DELETED.equals(message.getChangeType())) {
+            products.remove(message.getProductId());
+            if (bootstrapping) {
+                tombstones.add(message.getProductId());
+            }
+        } else if (message.getProduct() != null) {
+            apply(message.getProduct());
+        }
+    }
+    
+    private void apply(CatalogProduct product) {
+        products.merge(product.getId(), product, (current, incoming) ->
+                current.getVersion() == null || incoming.getVersion() == null
+                        || incoming.getVersion() >= current.getVersion() ? incoming : current);
+    }
+}
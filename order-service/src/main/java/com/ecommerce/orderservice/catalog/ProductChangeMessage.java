@@ -0,0 +1,24 @@
+package com.ecommerce.orderservice.catalog;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Product change event as published by product-service on {@code product.exchange}
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductChangeMessage {
+    public static final String DELETED = "DELETED";
+    public static final String CATALOG_RELOADED = "CATALOG_RELOADED";
+    
+    private Long productId;
+    private String changeType;
+    
+    /**
+     * State after the change, null for deletions and catalog reloads
+     */
+    private CatalogProduct product;
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.catalog.CatalogProduct;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of product-service's multi-get, one entry per requested id
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductBatchResponse {
+    private List<Lookup> items;
+    
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Lookup {
+        private Long id;
+        private boolean found;
+        private CatalogProduct product;
+    }
+}
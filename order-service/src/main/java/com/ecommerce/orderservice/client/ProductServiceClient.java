@@ -0,0 +1,138 @@
+package com.ecommerce.orderservice.client;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP client for product-service's stock and product endpoints.
+ * All calls share one connection pool capped at {@code product.client.max-connections};
+ * callers beyond that wait in a bounded acquire queue and fail fast once it is full, so a
+ * burst cannot open an unbounded number of connections. Every call has a connect and a
+ * response timeout. Idempotent calls are retried on connection errors and 5xx answers
+ * with jittered exponential backoff; the non-idempotent stock decrement is only retried
+ * when the connection was refused, since a timed-out decrement may have been applied.
+ */
+@Component
+@Slf4j
+public class ProductServiceClient {
+    
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    
+    public ProductServiceClient(WebClient.Builder webClientBuilder,
+                                @Value("${product.service.url}") String productServiceUrl,
+                                @Value("${product.client.max-connections:50}") int maxConnections,
+                                @Value("${product.client.pending-acquire-max:500}") int pendingAcquireMax,
+                                @Value("${product.client.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+                                @Value("${product.client.max-idle-time:30s}") Duration maxIdleTime,
+                                @Value("${product.client.connect-timeout:1s}") Duration connectTimeout,
+                                @Value("${product.client.response-timeout:3s}") Duration responseTimeout,
+                                @Value("${product.client.max-attempts:3}") int maxAttempts,
+                                @Value("${product.client.retry-backoff:100ms}") Duration retryBackoff) {
+        this.connectionProvider = ConnectionProvider.builder("product-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .responseTimeout(responseTimeout);
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(productServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+    
+    /**
+     * Holds stock for every line of an order, all or nothing; repeating it for the same order is harmless
+     */
+    public Mono<StockResponse> reserve(Long orderId, List<StockLine> items) {
+        return withRetry(webClient.post()
+                .uri("/api/products/reservations")
+                .bodyValue(Map.of("orderId", orderId, "items", items))
+                .retrieve()
+                // A conflict carries the per-line results in its body
+                .onStatus(status -> status.value() == HttpStatus.CONFLICT.value(), response -> Mono.empty())
+                .bodyToMono(StockResponse.class), true);
+    }
+    
+    public Mono<StockResponse> commitReservation(Long orderId) {
+        return withRetry(webClient.post()
+                .uri("/api/products/reservations/{orderId}/commit", orderId)
+                .retrieve()
+                .bodyToMono(StockResponse.class), true);
+    }
+    
+    public Mono<StockResponse> releaseReservation(Long orderId) {
+        return withRetry(webClient.post()
+                .uri("/api/products/reservations/{orderId}/release", orderId)
+                .retrieve()
+                .bodyToMono(StockResponse.class), true);
+    }
+    
+    /**
+     * Decrements stock for all lines in one all-or-nothing call
+     */
+    public Mono<StockResponse> decrementStock(List<StockLine> items) {
+        return withRetry(webClient.put()
+                .uri("/api/products/stock/batch")
+                .bodyValue(Map.of("items", items))
+                .retrieve()
+                .bodyToMono(StockResponse.class), false);
+    }
+    
+    public Mono<ProductBatchResponse> getProducts(List<Long> productIds) {
+        return withRetry(webClient.post()
+                .uri("/api/products/batch")
+                .bodyValue(productIds)
+                .retrieve()
+                .bodyToMono(ProductBatchResponse.class), true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+    
+    private <T> Mono<T> withRetry(Mono<T> call, boolean idempotent) {
+        return call.retryWhen(Retry.backoff(maxAttempts - 1, retryBackoff)
+                .jitter(0.5)
+                .filter(error -> isRetryable(error, idempotent))
+                .doBeforeRetry(signal -> log.debug("Retrying product-service call after: {}",
+                        signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+    
+    private static boolean isRetryable(Throwable error, boolean idempotent) {
+        if (error instanceof WebClientResponseException response) {
+            return idempotent && response.getStatusCode().is5xxServerError();
+        }
+        if (error instanceof WebClientRequestException) {
+            return idempotent || error.getCause() instanceof ConnectException;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.orderservice.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+    private Long productId;
+    private Integer quantity;
+}
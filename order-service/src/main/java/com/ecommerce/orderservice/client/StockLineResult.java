@@ -0,0 +1,17 @@
+package com.ecommerce.orderservice.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StockLineResult {
+    private Long productId;
+    private Integer quantity;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.orderservice.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Answer of product-service's reservation and batch stock endpoints
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StockResponse {
+    private boolean success;
+    private LocalDateTime expiresAt;
+    private List<StockLineResult> results;
+    
+    /**
+     * Commit answers this way for orders placed before stock reservations existed
+     */
+    public boolean isNoReservation() {
+        return !success && results != null && results.size() == 1 && results.get(0).getProductId() == null;
+    }
+    
+    /**
+     * Release answers this way when the order holds no stock: it never reserved any, or its
+     * holds were already released or expired. Nothing was released by the call.
+     */
+    public boolean isNothingHeld() {
+        return isNoReservation() || (!success && results != null && !results.isEmpty()
+                && results.stream().allMatch(StockLineResult::isSuccess));
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.orderservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Connections are only borrowed from the pool when the first statement runs, so a
+ * transaction that waits on a remote call before touching the database does not hold one
+ */
+@Configuration
+public class DataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource pooledDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource pooledDataSource) {
+        return new LazyConnectionDataSourceProxy(pooledDataSource);
+    }
+}
@@ -27,6 +27,11 @@ public class RabbitMQConfig {
     public static final String ORDER_SHIPPED_ROUTING_KEY = "order.shipped";
     public static final String ORDER_DELIVERED_ROUTING_KEY = "order.delivered";
     
+    // Product change events published by product-service, feeding the local catalog replica
+    public static final String PRODUCT_EXCHANGE = "product.exchange";
+    public static final String PRODUCT_CHANGES_QUEUE_PREFIX = "order.product-changes.";
+    public static final String PRODUCT_ALL_ROUTING_KEY = "product.#";
+    
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(ORDER_EXCHANGE);
@@ -92,12 +97,36 @@ public class RabbitMQConfig {
                 .with(ORDER_DELIVERED_ROUTING_KEY);
     }
     
+    @Bean
+    public TopicExchange productExchange() {
+        return new TopicExchange(PRODUCT_EXCHANGE);
+    }
+    
+    /**
+     * One queue per instance, so every catalog replica sees every change; an instance
+     * reloads the catalog snapshot whenever it starts consuming, so nothing needs to outlive it
+     */
+    @Bean
+    public Queue productChangesQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(PRODUCT_CHANGES_QUEUE_PREFIX));
+    }
+    
+    @Bean
+    public Binding productChangesBinding() {
+        return BindingBuilder.bind(productChangesQueue())
+                .to(productExchange())
+                .with(PRODUCT_ALL_ROUTING_KEY);
+    }
+    
     @Bean
     public MessageConverter jsonMessageConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        return new Jackson2JsonMessageConverter(objectMapper);
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter(objectMapper);
+        // Incoming type headers name product-service classes; decode into the listener's parameter type
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
     }
     
     @Bean
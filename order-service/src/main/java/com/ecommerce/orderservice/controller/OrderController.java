@@ -2,15 +2,29 @@ package com.ecommerce.orderservice.controller;
 
 import com.ecommerce.orderservice.dto.CreateOrderRequest;
 import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderPage;
+import com.ecommerce.orderservice.export.OrderExportService;
+import com.ecommerce.orderservice.idempotency.IdempotencyKeyInProgressException;
+import com.ecommerce.orderservice.idempotency.IdempotencyKeyMismatchException;
+import com.ecommerce.orderservice.idempotency.IdempotencyService;
 import com.ecommerce.orderservice.model.OrderStatus;
+import com.ecommerce.orderservice.service.IllegalOrderTransitionException;
 import com.ecommerce.orderservice.service.OrderService;
+import com.ecommerce.orderservice.service.OrderValidationException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -20,12 +34,50 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
     
     @GetMapping
     public ResponseEntity<List<OrderDTO>> getAllOrders() {
         return ResponseEntity.ok(orderService.getAllOrders());
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<OrderPage> getOrdersPage(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(orderService.getOrdersPage(status, cursor, size));
+    }
+    
+    /**
+     * Streams matching orders with their items, oldest first; answers 429 while the maximum
+     * number of exports is already running
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        if (!orderExportService.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                orderExportService.export(status, from, to, exportFormat, out);
+            } finally {
+                orderExportService.release();
+            }
+        };
+        boolean csv = exportFormat == OrderExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
         return ResponseEntity.ok(orderService.getOrderById(id));
@@ -36,10 +88,31 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrdersByCustomerEmail(email));
     }
     
+    @GetMapping("/customer/{email}/page")
+    public ResponseEntity<OrderPage> getOrdersPageByCustomer(
+            @PathVariable String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(orderService.getOrdersPageByCustomerEmail(email, cursor, size));
+    }
+    
+    /**
+     * With an Idempotency-Key header, retries of the same request return the order created
+     * by the first one, marked with {@code Idempotent-Replayed: true}, instead of creating another
+     */
     @PostMapping
-    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<OrderDTO> createOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreateOrderRequest request) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(orderService.createOrder(request));
+        }
+        IdempotencyService.Result<OrderDTO> result = idempotencyService.execute(
+                idempotencyKey, request, OrderDTO.class, () -> orderService.createOrder(request));
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(orderService.createOrder(request));
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.value());
     }
     
     @PutMapping("/{id}/status")
@@ -57,4 +130,26 @@ public class OrderController {
         Long paymentId = request.get("paymentId");
         return ResponseEntity.ok(orderService.processPayment(id, paymentId));
     }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", String.valueOf(e.getMessage())));
+    }
+    
+    @ExceptionHandler({IllegalOrderTransitionException.class, OptimisticLockingFailureException.class,
+            IdempotencyKeyInProgressException.class})
+    public ResponseEntity<Map<String, Object>> handleConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", String.valueOf(e.getMessage())));
+    }
+    
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException e) {
+        return ResponseEntity.unprocessableEntity().body(Map.of("message", e.getMessage()));
+    }
+    
+    @ExceptionHandler(OrderValidationException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidOrder(OrderValidationException e) {
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of("message", e.getMessage(), "errors", e.getErrors()));
+    }
 }
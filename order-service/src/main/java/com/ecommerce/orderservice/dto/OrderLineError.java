@@ -0,0 +1,17 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Why one line of an order request was rejected; {@code index} is the line's position in the request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineError {
+    private int index;
+    private Long productId;
+    private String message;
+}
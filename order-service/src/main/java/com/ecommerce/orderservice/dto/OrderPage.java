@@ -0,0 +1,20 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated order listing, newest first.
+ * Pass {@code nextCursor} back as {@code cursor} to fetch the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
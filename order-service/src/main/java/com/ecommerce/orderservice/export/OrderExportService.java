@@ -0,0 +1,250 @@
+package com.ecommerce.orderservice.export;
+
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulk export of orders with their items for back-office jobs.
+ * Orders and items are read with one join through a forward-only JDBC cursor
+ * ({@code order.export.fetch-size} rows per round trip) and written out as they arrive:
+ * NDJSON holds one order per line with its items nested, CSV one line per item. Memory
+ * stays constant, and since the response is written with blocking writes, a slow reader
+ * holds back the cursor instead of rows piling up. At most {@code order.export.max-concurrent}
+ * exports run at once, each holding a single connection, so the pool is left to live traffic.
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+    
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+    
+    private static final String SELECT = "SELECT o.id, o.customer_email, o.customer_name, o.status, o.total_amount, "
+            + "o.shipping_address, o.payment_method, o.payment_id, o.created_at, o.updated_at, "
+            + "i.product_id, i.product_name, i.quantity, i.price, i.subtotal "
+            + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id";
+    
+    private static final String CSV_HEADER = "orderId,customerEmail,customerName,status,totalAmount,shippingAddress,"
+            + "paymentMethod,paymentId,createdAt,updatedAt,productId,productName,quantity,price,subtotal\n";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+    
+    public OrderExportService(DataSource dataSource, ObjectMapper objectMapper,
+                              @Value("${order.export.fetch-size:1000}") int fetchSize,
+                              @Value("${order.export.max-concurrent:2}") int maxConcurrent) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+    
+    /**
+     * Reserves one of the export slots; the caller must hand it back with {@link #release()}
+     * @return false if the maximum number of exports is already running
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+    
+    public void release() {
+        permits.release();
+    }
+    
+    /**
+     * Writes matching orders, oldest first
+     * @param from inclusive lower bound on the creation time, or null
+     * @param to   exclusive upper bound on the creation time, or null
+     */
+    @Transactional(readOnly = true)
+    public void export(OrderStatus status, LocalDateTime from, LocalDateTime to, Format format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND o.status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        // Items of one order arrive together, so an order is complete when the next one starts
+        sql.append(" ORDER BY o.created_at, o.id, i.id");
+        
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        jdbcTemplate.query(sql.toString(), rs -> {
+            try {
+                writer.row(rs);
+            } catch (IOException e) {
+                // The client went away: abandon the cursor
+                throw new UncheckedIOException(e);
+            }
+        }, args.toArray());
+        try {
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} orders as {} in {} ms", writer.orders(), format, System.currentTimeMillis() - start);
+    }
+    
+    private interface RowWriter {
+        void row(ResultSet rs) throws SQLException, IOException;
+        
+        void finish() throws IOException;
+        
+        long orders();
+    }
+    
+    private final class NdjsonWriter implements RowWriter {
+        private final OutputStream out;
+        private OrderDTO current;
+        private long orders;
+        
+        private NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("id");
+            if (current == null || current.getId() != orderId) {
+                finish();
+                current = order(rs);
+            }
+            item(rs).ifPresent(current.getItems()::add);
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            if (current != null) {
+                out.write(objectMapper.writeValueAsBytes(current));
+                out.write('\n');
+                current = null;
+                orders++;
+            }
+        }
+        
+        @Override
+        public long orders() {
+            return orders;
+        }
+    }
+    
+    private static final class CsvWriter implements RowWriter {
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder();
+        private long lastOrderId = -1;
+        private long orders;
+        
+        private CsvWriter(OutputStream out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            if (orders == 0) {
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+            long orderId = rs.getLong("id");
+            if (orderId != lastOrderId) {
+                lastOrderId = orderId;
+                orders++;
+            }
+            line.setLength(0);
+            for (int column = 1; column <= 15; column++) {
+                if (column > 1) {
+                    line.append(',');
+                }
+                Object value = rs.getObject(column);
+                appendCsv(line, value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString()
+                        : value != null ? value.toString() : null);
+            }
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            if (orders == 0) {
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        
+        @Override
+        public long orders() {
+            return orders;
+        }
+    }
+    
+    private static OrderDTO order(ResultSet rs) throws SQLException {
+        OrderDTO order = new OrderDTO();
+        order.setId(rs.getLong("id"));
+        order.setCustomerEmail(rs.getString("customer_email"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setShippingAddress(rs.getString("shipping_address"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        long paymentId = rs.getLong("payment_id");
+        order.setPaymentId(rs.wasNull() ? null : paymentId);
+        order.setCreatedAt(localDateTime(rs.getTimestamp("created_at")));
+        order.setUpdatedAt(localDateTime(rs.getTimestamp("updated_at")));
+        order.setItems(new ArrayList<>());
+        return order;
+    }
+    
+    private static Optional<OrderItemDTO> item(ResultSet rs) throws SQLException {
+        long productId = rs.getLong("product_id");
+        if (rs.wasNull()) {
+            // Order without items
+            return Optional.empty();
+        }
+        return Optional.of(new OrderItemDTO(productId, rs.getString("product_name"),
+                rs.getInt("quantity"), rs.getBigDecimal("price")));
+    }
+    
+    private static LocalDateTime localDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+    
+    private static void appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.orderservice.idempotency;
+
+/**
+ * The first request with this Idempotency-Key did not finish within the wait timeout
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    
+    public IdempotencyKeyInProgressException(String key) {
+        super("A request with Idempotency-Key " + key + " is still in progress; retry later");
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.orderservice.idempotency;
+
+/**
+ * The Idempotency-Key was already used for a request with a different body
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency-Key " + key + " was already used with a different request");
+    }
+}
@@ -0,0 +1,280 @@
+package com.ecommerce.orderservice.idempotency;
+
+import com.ecommerce.orderservice.model.IdempotencyRecord;
+import com.ecommerce.orderservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and replays its response to retries.
+ * <p>
+ * Keys are claimed in two tiers. In memory, the first request for a key registers a future
+ * that concurrent duplicates on the same instance wait on, and that keeps answering retries
+ * until {@code order.idempotency.ttl} passes, without touching the database. In the
+ * database, the first request inserts an IN_PROGRESS {@link IdempotencyRecord} in its own
+ * transaction; the primary key makes that claim exclusive across instances. The response is
+ * stored in the transaction that performs the request, so the record is COMPLETED exactly
+ * when the result is committed. Requests that lose the claim poll the record until it
+ * completes or {@code order.idempotency.wait-timeout} passes. If the request fails nothing
+ * is stored and the claim is released, so a retry runs it again. A request whose claim was
+ * taken over as abandoned meanwhile rolls back instead of completing it. A key reused with a
+ * different body is rejected.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    public static final int MAX_KEY_LENGTH = 255;
+    
+    private static final long MAX_POLL_INTERVAL_MS = 500;
+    
+    /**
+     * @param replayed true if the value is the stored response of an earlier request
+     */
+    public record Result<T>(T value, boolean replayed) {
+    }
+    
+    private record Entry(String fingerprint, CompletableFuture<String> response) {
+    }
+    
+    /**
+     * @param createdAt identifies an owned claim, so that one taken over by another request
+     *                  is neither completed nor released by this one
+     */
+    private record Claim(boolean owned, LocalDateTime createdAt, IdempotencyRecord existing) {
+    }
+    
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate separateTransaction;
+    private final Cache<String, Entry> local;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration abandonedAfter;
+    
+    public IdempotencyService(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${order.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                              @Value("${order.idempotency.abandoned-after:60s}") Duration abandonedAfter,
+                              @Value("${order.idempotency.local-max-entries:100000}") long localMaxEntries) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.local = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(localMaxEntries)
+                .build();
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.abandonedAfter = abandonedAfter;
+    }
+    
+    /**
+     * Runs the action in a transaction unless a request with the same key already did
+     * @param request the request body, compared with the one the key was first used with
+     * @param type    type of the stored response, for replays
+     * @throws IdempotencyKeyMismatchException    if the key was used with a different request
+     * @throws IdempotencyKeyInProgressException if the first request with the key is still running
+     */
+    public <T> Result<T> execute(String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = local.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyMismatchException(key);
+            }
+            return new Result<>(read(await(key, existing.response()), type), true);
+        }
+        try {
+            Result<String> stored = executeOnce(key, fingerprint, type, action);
+            mine.response().complete(stored.value());
+            return new Result<>(read(stored.value(), type), stored.replayed());
+        } catch (RuntimeException e) {
+            // Duplicates already waiting get the same failure; later retries start over
+            local.asMap().remove(key, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer deleted = transaction.execute(status -> recordRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+    
+    private <T> Result<String> executeOnce(String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Claim claim = claim(key, fingerprint);
+            if (claim.owned()) {
+                return new Result<>(run(key, claim.createdAt(), action), false);
+            }
+            if (claim.existing() != null && !claim.existing().getFingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyMismatchException(key);
+            }
+            String body = awaitCompletion(key, claim.existing(), deadline);
+            if (body != null) {
+                return new Result<>(body, true);
+            }
+            // The claim was released or went stale: try to take it
+        }
+    }
+    
+    private Claim claim(String key, String fingerprint) {
+        // Truncated to what the column stores, as the claim is matched on it
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        try {
+            separateTransaction.executeWithoutResult(status ->
+                    recordRepository.saveAndFlush(new IdempotencyRecord(key, fingerprint, now, now.plus(ttl))));
+            return new Claim(true, now, null);
+        } catch (DataIntegrityViolationException e) {
+            return separateTransaction.execute(status -> {
+                if (recordRepository.deleteStale(key, now, IdempotencyRecord.Status.IN_PROGRESS,
+                        now.minus(abandonedAfter)) > 0) {
+                    log.info("Replacing stale claim on Idempotency-Key {}", key);
+                    recordRepository.saveAndFlush(new IdempotencyRecord(key, fingerprint, now, now.plus(ttl)));
+                    return new Claim(true, now, null);
+                }
+                return new Claim(false, null, recordRepository.findById(key).orElse(null));
+            });
+        }
+    }
+    
+    private <T> String run(String key, LocalDateTime claimedAt, Supplier<T> action) {
+        try {
+            return transaction.execute(status -> {
+                String body = write(action.get());
+                if (recordRepository.complete(key, claimedAt, IdempotencyRecord.Status.IN_PROGRESS,
+                        IdempotencyRecord.Status.COMPLETED, body) == 0) {
+                    // Taken over as abandoned while this request ran: roll back so the request counts once
+                    log.warn("Lost the claim on Idempotency-Key {} before completing it", key);
+                    throw new IdempotencyKeyInProgressException(key);
+                }
+                return body;
+            });
+        } catch (RuntimeException e) {
+            release(key, claimedAt);
+            throw e;
+        }
+    }
+    
+    private void release(String key, LocalDateTime claimedAt) {
+        try {
+            separateTransaction.executeWithoutResult(status ->
+                    recordRepository.deleteClaim(key, claimedAt, IdempotencyRecord.Status.IN_PROGRESS));
+        } catch (DataAccessException e) {
+            // The claim is taken over once it is considered abandoned
+            log.warn("Could not release Idempotency-Key {}: {}", key, e.getMessage());
+        }
+    }
+    
+    /**
+     * Polls a claim held elsewhere with growing intervals
+     * @return the stored response, or null once the claim is gone or stale
+     */
+    private String awaitCompletion(String key, IdempotencyRecord record, long deadline) {
+        long interval = 20;
+        while (true) {
+            if (record == null || isStale(record)) {
+                return null;
+            }
+            if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return record.getResponseBody();
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            try {
+                Thread.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            interval = Math.min(interval * 2, MAX_POLL_INTERVAL_MS);
+            record = separateTransaction.execute(status -> recordRepository.findById(key).orElse(null));
+        }
+    }
+    
+    private boolean isStale(IdempotencyRecord record) {
+        LocalDateTime now = LocalDateTime.now();
+        return record.getExpiresAt().isBefore(now)
+                || record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS
+                && record.getCreatedAt().isBefore(now.minus(abandonedAfter));
+    }
+    
+    private String await(String key, CompletableFuture<String> response) {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException(key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+    
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not fingerprint request: " + e.getMessage(), e);
+        }
+    }
+    
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not store response: " + e.getMessage(), e);
+        }
+    }
+    
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not replay stored response: " + e.getMessage(), e);
+        }
+    }
+}
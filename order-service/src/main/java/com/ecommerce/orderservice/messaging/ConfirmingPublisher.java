@@ -0,0 +1,218 @@
+package com.ecommerce.orderservice.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous RabbitMQ publisher with publisher confirms.
+ * Messages are queued in bounded in-memory queues, one per publishing thread, and each
+ * thread sends whatever its queue holds as a pipelined batch without waiting for
+ * confirms; channels come from the connection factory's channel cache. Confirms are
+ * tracked per message: an ack completes the caller's future, a nack or a send failure
+ * is retried with backoff until the attempts run out, when the future fails. Messages
+ * with the same partition key go through the same queue, so they are sent in order
+ * unless one of them has to be retried.
+ * <p>
+ * Metrics: {@code order.publisher.queue.depth}, {@code order.publisher.confirm.latency}
+ * and {@code order.publisher.messages} tagged with {@code result}.
+ */
+@Component
+@Slf4j
+public class ConfirmingPublisher {
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final List<BlockingQueue<PendingMessage>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "publisher-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Timer confirmLatency;
+    private final Counter acked;
+    private final Counter nacked;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rejected;
+    
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration enqueueTimeout;
+    
+    private volatile boolean running = true;
+    
+    public ConfirmingPublisher(RabbitTemplate rabbitTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${order.publisher.threads:4}") int threads,
+                               @Value("${order.publisher.queue-capacity:10000}") int queueCapacity,
+                               @Value("${order.publisher.batch-size:100}") int batchSize,
+                               @Value("${order.publisher.max-attempts:5}") int maxAttempts,
+                               @Value("${order.publisher.retry-backoff:500ms}") Duration retryBackoff,
+                               @Value("${order.publisher.enqueue-timeout:1s}") Duration enqueueTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.enqueueTimeout = enqueueTimeout;
+        
+        this.confirmLatency = Timer.builder("order.publisher.confirm.latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.acked = counter(meterRegistry, "ack");
+        this.nacked = counter(meterRegistry, "nack");
+        this.retried = counter(meterRegistry, "retry");
+        this.failed = counter(meterRegistry, "failed");
+        this.rejected = counter(meterRegistry, "rejected");
+        Gauge.builder("order.publisher.queue.depth", queues, all -> all.stream().mapToInt(BlockingQueue::size).sum())
+                .register(meterRegistry);
+        
+        int capacityPerQueue = Math.max(1, queueCapacity / threads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<PendingMessage> queue = new ArrayBlockingQueue<>(capacityPerQueue);
+            queues.add(queue);
+            Thread worker = new Thread(() -> drain(queue), "publisher-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * Queues a message for publishing.
+     * @return completes once the broker has confirmed the message, or fails when it was
+     * rejected because the queue stayed full, or could not be published within the attempts
+     */
+    public CompletableFuture<Void> publish(Object partitionKey, String exchange, String routingKey, Message message) {
+        PendingMessage pending = new PendingMessage(queueFor(partitionKey), exchange, routingKey, message);
+        try {
+            if (!pending.queue.offer(pending, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                pending.confirmed.completeExceptionally(new RejectedExecutionException("Publisher queue is full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.confirmed.completeExceptionally(e);
+        }
+        return pending.confirmed;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+    }
+    
+    private void drain(BlockingQueue<PendingMessage> queue) {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(this::send);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Publisher thread failed on a batch: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void send(PendingMessage pending) {
+        pending.attempts++;
+        CorrelationData correlation = new CorrelationData();
+        long sentAt = System.nanoTime();
+        try {
+            rabbitTemplate.send(pending.exchange, pending.routingKey, pending.message, correlation);
+        } catch (AmqpException e) {
+            retry(pending, e.getMessage());
+            return;
+        }
+        correlation.getFuture().whenComplete((confirm, error) -> {
+            if (error == null && confirm.isAck()) {
+                confirmLatency.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                acked.increment();
+                pending.confirmed.complete(null);
+            } else {
+                nacked.increment();
+                retry(pending, error != null ? error.getMessage() : confirm.getReason());
+            }
+        });
+    }
+    
+    private void retry(PendingMessage pending, String reason) {
+        if (pending.attempts >= maxAttempts || !running) {
+            failed.increment();
+            log.warn("Giving up publishing to {} after {} attempts: {}", pending.routingKey, pending.attempts, reason);
+            pending.confirmed.completeExceptionally(new AmqpException("Not confirmed by the broker: " + reason));
+            return;
+        }
+        retried.increment();
+        long delay = retryBackoff.toMillis() << Math.min(pending.attempts - 1, 6);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!pending.queue.offer(pending)) {
+                    retry(pending, "publisher queue is full");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.confirmed.completeExceptionally(e);
+        }
+    }
+    
+    private BlockingQueue<PendingMessage> queueFor(Object partitionKey) {
+        return queues.get(Math.floorMod(partitionKey != null ? partitionKey.hashCode() : 0, queues.size()));
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.publisher.messages")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static final class PendingMessage {
+        private final BlockingQueue<PendingMessage> queue;
+        private final String exchange;
+        private final String routingKey;
+        private final Message message;
+        private final CompletableFuture<Void> confirmed = new CompletableFuture<>();
+        private volatile int attempts;
+        
+        private PendingMessage(BlockingQueue<PendingMessage> queue, String exchange, String routingKey, Message message) {
+            this.queue = queue;
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.message = message;
+        }
+    }
+}
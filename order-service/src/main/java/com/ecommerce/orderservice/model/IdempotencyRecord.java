@@ -0,0 +1,79 @@
+package com.ecommerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable claim on an Idempotency-Key. The row is inserted IN_PROGRESS before the request
+ * runs and marked COMPLETED with the response in the same transaction that saves the
+ * result, so a retry served by any instance sees either the finished response or the claim.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+    
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+    
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    
+    /** SHA-256 of the request body, hex encoded */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+    
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Transient
+    private boolean persisted;
+    
+    public IdempotencyRecord(String idempotencyKey, String fingerprint, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.status = Status.IN_PROGRESS;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+    
+    /**
+     * New records are always inserted, never merged, so a second claim on the same key fails
+     * on the primary key instead of overwriting the first
+     */
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        persisted = true;
+    }
+}
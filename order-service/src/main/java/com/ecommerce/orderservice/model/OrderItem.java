@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order_id", columnList = "order_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,15 @@
 package com.ecommerce.orderservice.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order lifecycle. Only the transitions listed here are allowed; DELIVERED, CANCELLED
+ * and FAILED are final.
+ */
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
@@ -9,5 +19,28 @@ public enum OrderStatus {
     SHIPPED,
     DELIVERED,
     CANCELLED,
-    FAILED
+    FAILED;
+    
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+    
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, CANCELLED, FAILED));
+        // Cash on delivery goes to PROCESSING without being paid first
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(PAYMENT_PROCESSING, PAID, PROCESSING, CANCELLED, FAILED));
+        TRANSITIONS.put(PAYMENT_PROCESSING, EnumSet.of(PAID, CANCELLED, FAILED));
+        TRANSITIONS.put(PAID, EnumSet.of(PROCESSING, SHIPPED, CANCELLED));
+        TRANSITIONS.put(PROCESSING, EnumSet.of(SHIPPED, CANCELLED));
+        TRANSITIONS.put(SHIPPED, EnumSet.of(DELIVERED));
+        TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(FAILED, EnumSet.noneOf(OrderStatus.class));
+    }
+    
+    public boolean canTransitionTo(OrderStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+    
+    public Set<OrderStatus> nextStatuses() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
 }
@@ -0,0 +1,55 @@
+package com.ecommerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message to publish, written in the same transaction as the change it announces
+ * and published by the outbox relay once that transaction has committed
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = @Index(name = "idx_outbox_messages_sent_at", columnList = "sent_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long aggregateId;
+    
+    @Column(nullable = false)
+    private String exchange;
+    
+    @Column(nullable = false)
+    private String routingKey;
+    
+    // Type id header expected by consumers' JSON converters
+    @Column(nullable = false)
+    private String messageType;
+    
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    // Set while a relay publishes the message, so that other relay instances leave it alone
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stock change product-service still has to apply for an order. It is written in the
+ * same transaction as the status change that causes it and kept until product-service
+ * has acknowledged it, so a failed call is retried instead of being lost.
+ */
+@Entity
+@Table(name = "stock_sync_tasks", indexes = {
+        @Index(name = "idx_stock_sync_tasks_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_stock_sync_tasks_order", columnList = "order_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncTask {
+    
+    public enum Action {
+        COMMIT,
+        RELEASE,
+        DECREMENT
+    }
+    
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Action action;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    /**
+     * Set while a worker is calling product-service for the task, which is not due again
+     * before then; a task claimed again after this has passed belongs to a worker that died
+     */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.orderservice.outbox;
+
+import com.ecommerce.orderservice.model.OutboxMessage;
+import com.ecommerce.orderservice.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records messages in the outbox table as part of the caller's transaction.
+ * The body is encoded here with the same converter the broker messages use, so a
+ * relayed message is identical to one sent directly.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventOutbox {
+    
+    private final OutboxRepository outboxRepository;
+    private final MessageConverter messageConverter;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Long aggregateId, String exchange, String routingKey, Object event) {
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setAggregateId(aggregateId);
+        outboxMessage.setExchange(exchange);
+        outboxMessage.setRoutingKey(routingKey);
+        outboxMessage.setMessageType(message.getMessageProperties().getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME));
+        outboxMessage.setPayload(new String(message.getBody(), StandardCharsets.UTF_8));
+        outboxRepository.save(outboxMessage);
+    }
+}
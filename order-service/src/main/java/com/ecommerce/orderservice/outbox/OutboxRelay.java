@@ -0,0 +1,225 @@
+package com.ecommerce.orderservice.outbox;
+
+import com.ecommerce.orderservice.messaging.ConfirmingPublisher;
+import com.ecommerce.orderservice.model.OutboxMessage;
+import com.ecommerce.orderservice.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox to RabbitMQ.
+ * Each batch is claimed in a short transaction with {@code FOR UPDATE SKIP LOCKED}, which
+ * stamps the rows with a claim so that several order-service instances can relay side by
+ * side. The batch is then handed to the {@link ConfirmingPublisher} in id order with no
+ * transaction open. Messages the broker confirmed are marked sent in a second short
+ * transaction, including ones confirmed after an earlier pass stopped waiting; rejected
+ * ones are handed back to the next pass. Delivery is at least once, and the message id
+ * is the outbox id, which lets consumers drop duplicates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+    
+    private final OutboxRepository outboxRepository;
+    private final ConfirmingPublisher publisher;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${order.outbox.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${order.outbox.confirm-timeout:5s}")
+    private Duration confirmTimeout;
+    
+    @Value("${order.outbox.claim-timeout:1m}")
+    private Duration claimTimeout;
+    
+    @Value("${order.outbox.retention:7d}")
+    private Duration retention;
+    
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    
+    // Confirmed by the broker but not yet marked sent
+    private final Queue<Long> confirmed = new ConcurrentLinkedQueue<>();
+    
+    private volatile boolean failing;
+    
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+    
+    @Scheduled(fixedDelayString = "${order.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} relayed outbox messages", deleted);
+        }
+    }
+    
+    private int relayBatch() {
+        List<OutboxMessage> batch;
+        try {
+            batch = new TransactionTemplate(transactionManager).execute(status -> claim());
+        } catch (DataAccessException e) {
+            onFailure(e.getMessage());
+            return 0;
+        }
+        if (batch == null || batch.isEmpty()) {
+            markConfirmed(List.of());
+            return 0;
+        }
+        
+        // Published and awaited with no transaction, so no rows stay locked meanwhile
+        Map<Long, CompletableFuture<Void>> confirms = new LinkedHashMap<>();
+        for (OutboxMessage message : batch) {
+            inFlight.add(message.getId());
+            CompletableFuture<Void> confirm = publisher.publish(message.getAggregateId(),
+                    message.getExchange(), message.getRoutingKey(), toAmqp(message));
+            confirm.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    confirmed.add(message.getId());
+                }
+                inFlight.remove(message.getId());
+            });
+            confirms.put(message.getId(), confirm);
+        }
+        awaitConfirms(confirms.values());
+        
+        long confirmedCount = confirms.values().stream()
+                .filter(confirm -> confirm.isDone() && !confirm.isCompletedExceptionally())
+                .count();
+        // Still pending ones keep their claim while the publisher retries them
+        List<Long> rejected = confirms.entrySet().stream()
+                .filter(entry -> entry.getValue().isCompletedExceptionally())
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!markConfirmed(rejected)) {
+            return 0;
+        }
+        
+        if (confirmedCount < batch.size()) {
+            onFailure((batch.size() - confirmedCount) + " of " + batch.size() + " messages were not confirmed");
+            return 0;
+        }
+        if (failing) {
+            failing = false;
+            log.info("Outbox relay recovered");
+        }
+        log.debug("Relayed {} outbox messages", batch.size());
+        return batch.size();
+    }
+    
+    /**
+     * Claims the next batch, leaving out messages the publisher is still retrying from an
+     * earlier pass: they are neither published again nor counted in this one
+     */
+    private List<OutboxMessage> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = outboxRepository.findUnclaimed(now, Limit.of(batchSize)).stream()
+                .filter(message -> !inFlight.contains(message.getId()))
+                .toList();
+        if (!batch.isEmpty()) {
+            outboxRepository.claim(batch.stream().map(OutboxMessage::getId).toList(), now.plus(claimTimeout));
+        }
+        return batch;
+    }
+    
+    /**
+     * Marks every message confirmed so far as sent and hands rejected ones back
+     * @return false if the update failed; confirmed ids are kept for the next pass
+     */
+    private boolean markConfirmed(List<Long> rejected) {
+        List<Long> sent = new ArrayList<>();
+        for (Long id = confirmed.poll(); id != null; id = confirmed.poll()) {
+            sent.add(id);
+        }
+        if (sent.isEmpty() && rejected.isEmpty()) {
+            return true;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!sent.isEmpty()) {
+                    outboxRepository.markSent(sent, LocalDateTime.now());
+                }
+                if (!rejected.isEmpty()) {
+                    outboxRepository.releaseClaims(rejected);
+                }
+            });
+            return true;
+        } catch (DataAccessException e) {
+            confirmed.addAll(sent);
+            onFailure(e.getMessage());
+            return false;
+        }
+    }
+    
+    private void onFailure(String reason) {
+        if (!failing) {
+            failing = true;
+            log.error("Outbox relay failed, {} messages pending: {}", pendingCount(), reason);
+        }
+    }
+    
+    private void awaitConfirms(Collection<CompletableFuture<Void>> confirms) {
+        try {
+            CompletableFuture.allOf(confirms.toArray(CompletableFuture[]::new))
+                    .get(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Whatever was confirmed in time is still marked sent
+        }
+    }
+    
+    private long pendingCount() {
+        try {
+            return outboxRepository.countBySentAtIsNull();
+        } catch (DataAccessException e) {
+            return -1;
+        }
+    }
+    
+    private static Message toAmqp(OutboxMessage message) {
+        return MessageBuilder.withBody(message.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(String.valueOf(message.getId()))
+                .setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, message.getMessageType())
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Stores the response on a claim, only if it is still the in-progress claim taken at
+     * {@code createdAt} and has not been replaced after being considered abandoned
+     * @return 1 if the claim was completed, 0 if it was lost
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseBody = :responseBody "
+            + "WHERE r.idempotencyKey = :key AND r.createdAt = :createdAt AND r.status = :inProgress")
+    int complete(@Param("key") String key, @Param("createdAt") LocalDateTime createdAt,
+                 @Param("inProgress") IdempotencyRecord.Status inProgress,
+                 @Param("status") IdempotencyRecord.Status status, @Param("responseBody") String responseBody);
+    
+    /**
+     * Removes a claim that has expired, or that is still in progress long after it was taken,
+     * which means the instance holding it went away before its transaction committed
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND (r.expiresAt < :now "
+            + "OR (r.status = :inProgress AND r.createdAt < :abandonedBefore))")
+    int deleteStale(@Param("key") String key, @Param("now") LocalDateTime now,
+                    @Param("inProgress") IdempotencyRecord.Status inProgress,
+                    @Param("abandonedBefore") LocalDateTime abandonedBefore);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.createdAt = :createdAt "
+            + "AND r.status = :status")
+    int deleteClaim(@Param("key") String key, @Param("createdAt") LocalDateTime createdAt,
+                    @Param("status") IdempotencyRecord.Status status);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,13 +2,61 @@ package com.ecommerce.orderservice.repository;
 
 import com.ecommerce.orderservice.model.Order;
 import com.ecommerce.orderservice.model.OrderStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomerEmail(String customerEmail);
     List<Order> findByStatus(OrderStatus status);
+    
+    /**
+     * Applies a status transition only if the order still has the status it was checked against
+     * @return 1 if the transition was applied, 0 if the status had already changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now, o.version = o.version + 1 "
+            + "WHERE o.id = :id AND o.status = :from")
+    int compareAndSetStatus(@Param("id") Long id, @Param("from") OrderStatus from, @Param("to") OrderStatus to,
+                            @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.paymentId = :paymentId, o.updatedAt = :now, o.version = o.version + 1 "
+            + "WHERE o.id = :id AND o.status = :from")
+    int compareAndSetPaid(@Param("id") Long id, @Param("from") OrderStatus from, @Param("to") OrderStatus to,
+                          @Param("paymentId") Long paymentId, @Param("now") LocalDateTime now);
+    
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor
+    
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByStatusBefore(@Param("status") OrderStatus status, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.customerEmail = :email "
+            + "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByCustomerEmailBefore(@Param("email") String email, @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id, Limit limit);
+    
+    /**
+     * Loads the items of the given orders with one join; orders already in the persistence
+     * context get their collections initialized in place
+     */
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
 }
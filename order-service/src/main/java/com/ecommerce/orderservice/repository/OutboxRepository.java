@@ -0,0 +1,52 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+    
+    /**
+     * Oldest unsent messages not claimed by a relay, locked; rows locked by another relay
+     * instance are skipped
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.sentAt IS NULL " +
+            "AND (m.claimedUntil IS NULL OR m.claimedUntil <= :now) ORDER BY m.id ASC")
+    List<OutboxMessage> findUnclaimed(@Param("now") LocalDateTime now, Limit limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimedUntil = :claimedUntil WHERE m.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+    
+    /**
+     * Hands unconfirmed messages back to the next relay pass
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimedUntil = NULL WHERE m.id IN :ids AND m.sentAt IS NULL")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.sentAt = :sentAt WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+    
+    long countBySentAtIsNull();
+}
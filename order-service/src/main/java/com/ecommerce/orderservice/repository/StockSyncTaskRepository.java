@@ -0,0 +1,45 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.StockSyncTask;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockSyncTaskRepository extends JpaRepository<StockSyncTask, Long> {
+    
+    /**
+     * Oldest tasks that are due, locked; rows locked by another worker instance are skipped
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<StockSyncTask> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            StockSyncTask.Status status, LocalDateTime now, Limit limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockSyncTask> findByIdIn(Collection<Long> ids);
+    
+    /**
+     * Deletes right away instead of at flush, so the row is locked from this point on
+     */
+    @Modifying
+    @Query("DELETE FROM StockSyncTask t WHERE t.id = :id")
+    int deleteTask(@Param("id") Long id);
+    
+    @Modifying
+    @Query("DELETE FROM StockSyncTask t WHERE t.status = :status AND t.completedAt < :before")
+    int deleteCompletedBefore(@Param("status") StockSyncTask.Status status, @Param("before") LocalDateTime before);
+    
+    long countByStatus(StockSyncTask.Status status);
+}
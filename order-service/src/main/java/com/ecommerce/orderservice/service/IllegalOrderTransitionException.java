@@ -0,0 +1,21 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.model.OrderStatus;
+import lombok.Getter;
+
+/**
+ * The requested status cannot be reached from the order's current status
+ */
+@Getter
+public class IllegalOrderTransitionException extends RuntimeException {
+    
+    private final OrderStatus currentStatus;
+    private final OrderStatus requestedStatus;
+    
+    public IllegalOrderTransitionException(Long orderId, OrderStatus currentStatus, OrderStatus requestedStatus) {
+        super("Order " + orderId + " cannot go from " + currentStatus + " to " + requestedStatus
+                + "; allowed: " + currentStatus.nextStatuses());
+        this.currentStatus = currentStatus;
+        this.requestedStatus = requestedStatus;
+    }
+}
@@ -1,23 +1,39 @@
 package com.ecommerce.orderservice.service;
 
+import com.ecommerce.orderservice.catalog.CatalogProduct;
+import com.ecommerce.orderservice.client.ProductServiceClient;
+import com.ecommerce.orderservice.client.StockLine;
+import com.ecommerce.orderservice.client.StockResponse;
 import com.ecommerce.orderservice.config.RabbitMQConfig;
 import com.ecommerce.orderservice.dto.*;
 import com.ecommerce.orderservice.event.OrderEvent;
 import com.ecommerce.orderservice.model.Order;
 import com.ecommerce.orderservice.model.OrderItem;
 import com.ecommerce.orderservice.model.OrderStatus;
+import com.ecommerce.orderservice.model.StockSyncTask;
+import com.ecommerce.orderservice.outbox.OrderEventOutbox;
 import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.stock.StockSync;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,15 +43,24 @@ import java.util.stream.Collectors;
 public class OrderService {
     
     private final OrderRepository orderRepository;
-    private final RabbitTemplate rabbitTemplate;
-    private final WebClient.Builder webClientBuilder;
-    
-    @Value("${product.service.url}")
-    private String productServiceUrl;
+    private final OrderEventOutbox orderEventOutbox;
+    private final ProductServiceClient productServiceClient;
+    private final StockSync stockSync;
+    private final OrderValidator orderValidator;
+    private final PlatformTransactionManager transactionManager;
     
     @Value("${payment.service.url}")
     private String paymentServiceUrl;
     
+    @Value("${product.reservation.timeout:5s}")
+    private Duration reservationTimeout;
+    
+    @Value("${order.page.max-size:200}")
+    private int maxPageSize;
+    
+    @Value("${order.status.max-transition-attempts:3}")
+    private int maxTransitionAttempts;
+    
     public List<OrderDTO> getAllOrders() {
         return orderRepository.findAll().stream()
                 .map(this::convertToDTO)
@@ -54,7 +79,34 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersPage(OrderStatus status, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        List<Order> orders = status != null
+                ? orderRepository.findPageByStatusBefore(status, after.createdAt(), after.id(), Limit.of(pageSize + 1))
+                : orderRepository.findPageBefore(after.createdAt(), after.id(), Limit.of(pageSize + 1));
+        return toPage(orders, pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersPageByCustomerEmail(String email, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        return toPage(orderRepository.findPageByCustomerEmailBefore(
+                email, after.createdAt(), after.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+    
+    /**
+     * Persists the order as PENDING in a transaction of its own, holds its stock with no
+     * statement run in the caller's transaction yet, then confirms the order there. Connections
+     * are only borrowed at the first statement, so the remote round trip holds none: nothing
+     * may touch the database in the caller's transaction before the reservation answers.
+     */
     public OrderDTO createOrder(CreateOrderRequest request) {
+        // Every line is checked before anything is written; prices and names come from the catalog
+        Map<Long, CatalogProduct> products = orderValidator.validate(request.getItems());
+        
         // Create order
         Order order = new Order();
         order.setCustomerEmail(request.getCustomerEmail());
@@ -68,11 +120,10 @@ public class OrderService {
         for (OrderItemDTO itemDTO : request.getItems()) {
             OrderItem item = new OrderItem();
             item.setProductId(itemDTO.getProductId());
-            item.setProductName(itemDTO.getProductName());
             item.setQuantity(itemDTO.getQuantity());
-            item.setPrice(itemDTO.getPrice());
+            applyCatalogData(item, itemDTO.getPrice(), products.get(itemDTO.getProductId()));
             
-            BigDecimal subtotal = itemDTO.getPrice().multiply(BigDecimal.valueOf(itemDTO.getQuantity()));
+            BigDecimal subtotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
             item.setSubtotal(subtotal);
             totalAmount = totalAmount.add(subtotal);
             
@@ -81,32 +132,47 @@ public class OrderService {
         
         order.setTotalAmount(totalAmount);
         
-        // Save order
-        Order savedOrder = orderRepository.save(order);
+        // Save order; the guard commits with it and releases whatever product-service ends up
+        // holding for the order unless the confirmation below commits
+        PendingOrder pending = inNewTransaction(() -> {
+            Order saved = orderRepository.save(order);
+            return new PendingOrder(saved, stockSync.guardReservation(saved.getId()));
+        });
+        Order savedOrder = pending.order();
         log.info("Order created: {}", savedOrder.getId());
         
+        // Hold stock until delivery
+        try {
+            reserveStock(savedOrder);
+        } catch (RuntimeException e) {
+            failPendingOrder(savedOrder.getId());
+            throw e;
+        }
+        
         // Publish order created event
+        stockSync.disarm(pending.guardTaskId());
         publishOrderEvent(savedOrder, RabbitMQConfig.ORDER_CREATED_ROUTING_KEY);
         
-        // Confirm order
-        savedOrder.setStatus(OrderStatus.CONFIRMED);
-        orderRepository.save(savedOrder);
-        publishOrderEvent(savedOrder, RabbitMQConfig.ORDER_CONFIRMED_ROUTING_KEY);
+        // Confirm order; fails if the guard already gave the order up
+        Order confirmedOrder = transition(savedOrder.getId(), OrderStatus.CONFIRMED, null).order();
+        publishOrderEvent(confirmedOrder, RabbitMQConfig.ORDER_CONFIRMED_ROUTING_KEY);
         
-        return convertToDTO(savedOrder);
+        return convertToDTO(confirmedOrder);
     }
     
     public OrderDTO updateOrderStatus(Long id, OrderStatus status) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        
-        OrderStatus previousStatus = order.getStatus();
-        order.setStatus(status);
-        Order updatedOrder = orderRepository.save(order);
+        Transition transition = transition(id, status, null);
+        Order updatedOrder = transition.order();
+        if (!transition.applied()) {
+            return convertToDTO(updatedOrder);
+        }
         
-        // If order is being marked as DELIVERED, reduce product stock
-        if (status == OrderStatus.DELIVERED && previousStatus != OrderStatus.DELIVERED) {
-            updateProductStock(updatedOrder);
+        // Side effects belong to the request that won the transition; both are recorded in this transaction
+        if (status == OrderStatus.DELIVERED) {
+            // Turn the stock hold into a sale; applied after commit
+            stockSync.schedule(updatedOrder.getId(), StockSyncTask.Action.COMMIT);
+        } else if (status == OrderStatus.CANCELLED || status == OrderStatus.FAILED) {
+            stockSync.schedule(updatedOrder.getId(), StockSyncTask.Action.RELEASE);
         }
         
         // Publish appropriate event based on status
@@ -125,16 +191,74 @@ public class OrderService {
     }
     
     public OrderDTO processPayment(Long orderId, Long paymentId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-        
-        order.setPaymentId(paymentId);
-        order.setStatus(OrderStatus.PAID);
-        Order updatedOrder = orderRepository.save(order);
-        
-        publishOrderEvent(updatedOrder, RabbitMQConfig.ORDER_PAID_ROUTING_KEY);
-        
-        return convertToDTO(updatedOrder);
+        if (paymentId == null) {
+            throw new IllegalArgumentException("Payment id is required");
+        }
+        Transition transition = transition(orderId, OrderStatus.PAID, paymentId);
+        if (transition.applied()) {
+            publishOrderEvent(transition.order(), RabbitMQConfig.ORDER_PAID_ROUTING_KEY);
+        }
+        return convertToDTO(transition.order());
+    }
+    
+    /**
+     * Moves an order to {@code target} with one conditional UPDATE on its current status.
+     * When another transaction changed the status first, the update matches no row and the
+     * rules are checked again against the status it left, so concurrent requests are settled
+     * the same way whichever commits first. A request for the status the order already has
+     * (with the same payment, for PAID) succeeds without applying anything.
+     */
+    private Transition transition(Long id, OrderStatus target, Long paymentId) {
+        for (int attempt = 1; ; attempt++) {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+            OrderStatus current = order.getStatus();
+            if (current == target && (paymentId == null || paymentId.equals(order.getPaymentId()))) {
+                return new Transition(order, false);
+            }
+            if (!current.canTransitionTo(target)) {
+                throw new IllegalOrderTransitionException(id, current, target);
+            }
+            
+            LocalDateTime now = LocalDateTime.now();
+            int updated = paymentId != null
+                    ? orderRepository.compareAndSetPaid(id, current, target, paymentId, now)
+                    : orderRepository.compareAndSetStatus(id, current, target, now);
+            if (updated == 1) {
+                log.info("Order {} moved from {} to {}", id, current, target);
+                return new Transition(orderRepository.findById(id).orElseThrow(), true);
+            }
+            if (attempt >= maxTransitionAttempts) {
+                throw new OptimisticLockingFailureException(
+                        "Order " + id + " kept changing while moving it to " + target);
+            }
+            log.debug("Order {} left {} concurrently, re-checking transition to {}", id, current, target);
+        }
+    }
+    
+    private record Transition(Order order, boolean applied) {
+    }
+    
+    private record PendingOrder(Order order, Long guardTaskId) {
+    }
+    
+    /**
+     * The guard releases the stock; if this write fails too, the worker fails the order once it has
+     */
+    private void failPendingOrder(Long orderId) {
+        try {
+            inNewTransaction(() -> orderRepository.compareAndSetStatus(
+                    orderId, OrderStatus.PENDING, OrderStatus.FAILED, LocalDateTime.now()));
+            log.info("Order {} failed: its stock could not be reserved", orderId);
+        } catch (DataAccessException e) {
+            log.error("Failed to mark order {} as failed: {}", orderId, e.getMessage());
+        }
+    }
+    
+    private <T> T inNewTransaction(Supplier<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction.execute(status -> work.get());
     }
     
     private void publishOrderEvent(Order order, String routingKey) {
@@ -158,40 +282,91 @@ public class OrderService {
                 .collect(Collectors.toList());
         event.setItems(itemEvents);
         
-        rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_EXCHANGE, routingKey, event);
-        log.info("Published order event: {} with routing key: {}", event.getOrderId(), routingKey);
+        // Relayed to the broker after commit, so a rollback cannot leave a phantom event
+        orderEventOutbox.add(order.getId(), RabbitMQConfig.ORDER_EXCHANGE, routingKey, event);
+        log.info("Queued order event: {} with routing key: {}", event.getOrderId(), routingKey);
+    }
+    
+    /**
+     * Prices and names a line from the catalog instead of trusting the client
+     */
+    private void applyCatalogData(OrderItem item, BigDecimal clientPrice, CatalogProduct product) {
+        if (clientPrice != null && clientPrice.compareTo(product.getPrice()) != 0) {
+            log.info("Repricing product {} from client price {} to catalog price {}",
+                    item.getProductId(), clientPrice, product.getPrice());
+        }
+        item.setProductName(product.getName());
+        item.setPrice(product.getPrice());
+    }
+    
+    private void reserveStock(Order order) {
+        StockResponse response;
+        try {
+            response = productServiceClient.reserve(order.getId(), stockLines(order)).block(reservationTimeout);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not reserve stock for order: " + e.getMessage(), e);
+        }
+        
+        if (response == null || !response.isSuccess()) {
+            throw new RuntimeException("Insufficient stock for order: "
+                    + (response != null ? response.getResults() : "no response"));
+        }
+        log.info("Reserved stock for order {} until {}", order.getId(), response.getExpiresAt());
     }
     
-    private void updateProductStock(Order order) {
-        for (OrderItem item : order.getItems()) {
+    private List<StockLine> stockLines(Order order) {
+        return order.getItems().stream()
+                .map(item -> new StockLine(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Converts one page; the items of all its orders are loaded with a single query first
+     */
+    private OrderPage toPage(List<Order> orders, int pageSize) {
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = orders.subList(0, Math.min(orders.size(), pageSize));
+        if (!page.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(page.stream().map(Order::getId).collect(Collectors.toList()));
+        }
+        List<OrderDTO> items = page.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? Cursor.of(page.get(page.size() - 1)).encode() : null;
+        return new OrderPage(items, nextCursor, hasMore);
+    }
+    
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+    
+    /**
+     * Position in the (createdAt, id) descending order, opaque to clients
+     */
+    private record Cursor(LocalDateTime createdAt, Long id) {
+        
+        private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+        
+        static Cursor of(Order order) {
+            return new Cursor(order.getCreatedAt(), order.getId());
+        }
+        
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return START;
+            }
             try {
-                // Call product service to update stock
-                webClientBuilder.build()
-                        .put()
-                        .uri(productServiceUrl + "/api/products/" + item.getProductId() + "/stock")
-                        .bodyValue(java.util.Map.of("quantity", item.getQuantity()))
-                        .retrieve()
-                        .bodyToMono(java.util.Map.class)
-                        .doOnSuccess(response -> {
-                            Boolean success = (Boolean) response.get("success");
-                            if (Boolean.TRUE.equals(success)) {
-                                log.info("Successfully updated stock for product {} by {} units", 
-                                        item.getProductId(), item.getQuantity());
-                            } else {
-                                log.warn("Failed to update stock for product {}: insufficient stock", 
-                                        item.getProductId());
-                            }
-                        })
-                        .doOnError(error -> {
-                            log.error("Error updating stock for product {}: {}", 
-                                    item.getProductId(), error.getMessage());
-                        })
-                        .subscribe();
-            } catch (Exception e) {
-                log.error("Exception while updating stock for product {}: {}", 
-                        item.getProductId(), e.getMessage());
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
             }
         }
+        
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
     }
     
     private OrderDTO convertToDTO(Order order) {
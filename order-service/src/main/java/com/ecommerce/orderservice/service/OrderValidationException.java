@@ -0,0 +1,20 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.OrderLineError;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * An order request with lines that cannot be fulfilled; carries every offending line
+ */
+@Getter
+public class OrderValidationException extends RuntimeException {
+    
+    private final List<OrderLineError> errors;
+    
+    public OrderValidationException(List<OrderLineError> errors) {
+        super("Order has " + errors.size() + " invalid line(s)");
+        this.errors = errors;
+    }
+}
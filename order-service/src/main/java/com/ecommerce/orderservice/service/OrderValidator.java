@@ -0,0 +1,118 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.catalog.CatalogProduct;
+import com.ecommerce.orderservice.catalog.ProductCatalogReplica;
+import com.ecommerce.orderservice.client.ProductBatchResponse;
+import com.ecommerce.orderservice.client.ProductServiceClient;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.OrderLineError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Checks every line of an order request against the current catalog before anything is persisted.
+ * Products are looked up in the local catalog replica; ids it does not hold (or all of them,
+ * while it is still loading) are fetched from product-service's multi-get in one call per
+ * {@code order.validation.batch-size} ids, issued concurrently, so validation costs at most one
+ * round trip whatever the number of lines. Stock is checked against the summed quantity of
+ * all lines for a product. The stock reservation made after the order is saved stays the
+ * authoritative check; this one rejects bad requests early and reports every offending line.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderValidator {
+    
+    private final ProductCatalogReplica catalogReplica;
+    private final ProductServiceClient productServiceClient;
+    
+    @Value("${order.validation.timeout:2s}")
+    private Duration timeout;
+    
+    @Value("${order.validation.batch-size:500}")
+    private int batchSize;
+    
+    /**
+     * @return the catalog entry of every product in the request
+     * @throws OrderValidationException listing every line that is malformed, unknown, unavailable
+     *         or short of stock
+     */
+    public Map<Long, CatalogProduct> validate(List<OrderItemDTO> items) {
+        List<OrderLineError> errors = new ArrayList<>();
+        Map<Long, Integer> requested = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemDTO item = items.get(i);
+            if (item.getProductId() == null) {
+                errors.add(new OrderLineError(i, null, "Product id is required"));
+            } else if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                errors.add(new OrderLineError(i, item.getProductId(), "Quantity must be greater than 0"));
+            } else {
+                requested.merge(item.getProductId(), item.getQuantity(), Math::addExact);
+            }
+        }
+    
+        Map<Long, CatalogProduct> products = lookup(requested.keySet());
+        for (int i = 0; i < items.size(); i++) {
+            Long productId = items.get(i).getProductId();
+            if (!requested.containsKey(productId)) {
+                continue;
+            }
+            CatalogProduct product = products.get(productId);
+            if (product == null) {
+                errors.add(new OrderLineError(i, productId, "Product not found with id: " + productId));
+            } else if (!Boolean.TRUE.equals(product.getAvailable())) {
+                errors.add(new OrderLineError(i, productId, "Product is not available: " + productId));
+            } else if (product.getAvailableToSell() != null && requested.get(productId) > product.getAvailableToSell()) {
+                errors.add(new OrderLineError(i, productId, "Insufficient stock: " + requested.get(productId)
+                        + " requested, " + Math.max(product.getAvailableToSell(), 0) + " available"));
+            }
+        }
+    
+        if (!errors.isEmpty()) {
+            errors.sort(Comparator.comparingInt(OrderLineError::getIndex));
+            throw new OrderValidationException(errors);
+        }
+        return products;
+    }
+    
+    private Map<Long, CatalogProduct> lookup(Set<Long> productIds) {
+        Map<Long, CatalogProduct> products = new HashMap<>();
+        List<Long> remote = new ArrayList<>();
+        for (Long productId : productIds) {
+            Optional<CatalogProduct> local = catalogReplica.isReady() ? catalogReplica.find(productId) : Optional.empty();
+            local.ifPresentOrElse(product -> products.put(productId, product), () -> remote.add(productId));
+        }
+        if (!remote.isEmpty()) {
+            fetch(remote).forEach(product -> products.put(product.getId(), product));
+        }
+        return products;
+    }
+    
+    private List<CatalogProduct> fetch(List<Long> productIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i += batchSize) {
+            chunks.add(productIds.subList(i, Math.min(i + batchSize, productIds.size())));
+        }
+        try {
+            List<CatalogProduct> products = Flux.fromIterable(chunks)
+                    .flatMap(productServiceClient::getProducts, chunks.size())
+                    .flatMapIterable(ProductBatchResponse::getItems)
+                    .filter(ProductBatchResponse.Lookup::isFound)
+                    .map(ProductBatchResponse.Lookup::getProduct)
+                    .collectList()
+                    .timeout(timeout)
+                    .block();
+            log.debug("Fetched {} of {} products for validation from product-service",
+                    products.size(), productIds.size());
+            return products;
+        } catch (Exception e) {
+            throw new RuntimeException("Could not validate order against the catalog: " + e.getMessage(), e);
+        }
+    }
+}
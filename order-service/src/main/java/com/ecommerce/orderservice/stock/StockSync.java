@@ -0,0 +1,59 @@
+package com.ecommerce.orderservice.stock;
+
+import com.ecommerce.orderservice.model.StockSyncTask;
+import com.ecommerce.orderservice.repository.StockSyncTaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Records stock changes for product-service as part of the caller's transaction;
+ * {@link StockSyncWorker} applies them after commit
+ */
+@Component
+@RequiredArgsConstructor
+public class StockSync {
+    
+    private final StockSyncTaskRepository taskRepository;
+    
+    @Value("${order.stock-sync.release-guard-delay:30s}")
+    private Duration releaseGuardDelay;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void schedule(Long orderId, StockSyncTask.Action action) {
+        taskRepository.save(newTask(orderId, action, LocalDateTime.now()));
+    }
+    
+    /**
+     * Records, with the PENDING order, a delayed release of the stock the order is about to
+     * hold. The transaction confirming the order calls {@link #disarm}. If the reservation
+     * fails, the confirmation rolls back, or the instance dies before it commits, the release
+     * runs, so a hold that was already taken is not left to its TTL; the worker then fails
+     * the order if it is still PENDING.
+     * @return id of the guard task
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long guardReservation(Long orderId) {
+        return taskRepository.save(newTask(orderId, StockSyncTask.Action.RELEASE,
+                LocalDateTime.now().plus(releaseGuardDelay))).getId();
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void disarm(Long guardTaskId) {
+        taskRepository.deleteTask(guardTaskId);
+    }
+    
+    private static StockSyncTask newTask(Long orderId, StockSyncTask.Action action, LocalDateTime due) {
+        StockSyncTask task = new StockSyncTask();
+        task.setOrderId(orderId);
+        task.setAction(action);
+        task.setStatus(StockSyncTask.Status.PENDING);
+        task.setNextAttemptAt(due);
+        return task;
+    }
+}
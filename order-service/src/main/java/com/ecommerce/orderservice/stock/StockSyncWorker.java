@@ -0,0 +1,283 @@
+package com.ecommerce.orderservice.stock;
+
+import com.ecommerce.orderservice.client.ProductServiceClient;
+import com.ecommerce.orderservice.client.StockLine;
+import com.ecommerce.orderservice.client.StockResponse;
+import com.ecommerce.orderservice.model.OrderStatus;
+import com.ecommerce.orderservice.model.StockSyncTask;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.StockSyncTaskRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies pending {@link StockSyncTask}s through the {@link ProductServiceClient}.
+ * Due tasks are claimed in a short transaction with {@code FOR UPDATE SKIP LOCKED}, which
+ * sets {@code claimedUntil} so that no other worker picks them up meanwhile. The calls then
+ * run with no transaction open, with at most {@code order.stock-sync.concurrency} in flight;
+ * tasks of the same order run in the order they were recorded. Their results are recorded in
+ * a second short transaction on the worker thread. A task that fails on a transport error or
+ * a 5xx answer is rescheduled with jittered exponential backoff; one that product-service
+ * rejects, or a stock decrement that timed out or whose claim expired and may already have
+ * been applied, is marked FAILED with the reason, so nothing is lost without a trace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockSyncWorker {
+    
+    private final StockSyncTaskRepository taskRepository;
+    private final OrderRepository orderRepository;
+    private final ProductServiceClient productServiceClient;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${order.stock-sync.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${order.stock-sync.concurrency:8}")
+    private int concurrency;
+    
+    @Value("${order.stock-sync.call-timeout:10s}")
+    private Duration callTimeout;
+    
+    @Value("${order.stock-sync.claim-timeout:5m}")
+    private Duration claimTimeout;
+    
+    @Value("${order.stock-sync.retry-backoff:1s}")
+    private Duration retryBackoff;
+    
+    @Value("${order.stock-sync.max-backoff:10m}")
+    private Duration maxBackoff;
+    
+    @Value("${order.stock-sync.max-attempts:50}")
+    private int maxAttempts;
+    
+    @Value("${order.stock-sync.retention:7d}")
+    private Duration retention;
+    
+    @Scheduled(fixedDelayString = "${order.stock-sync.poll-interval-ms:500}")
+    public void run() {
+        int processed;
+        do {
+            processed = processBatch();
+        } while (processed == batchSize);
+    }
+    
+    @Scheduled(fixedDelayString = "${order.stock-sync.purge-interval-ms:3600000}")
+    public void purgeDone() {
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                taskRepository.deleteCompletedBefore(StockSyncTask.Status.DONE, LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} completed stock sync tasks", deleted);
+        }
+    }
+    
+    private int processBatch() {
+        List<ClaimedTask> claimed;
+        try {
+            claimed = new TransactionTemplate(transactionManager).execute(status -> claim());
+        } catch (DataAccessException e) {
+            log.error("Stock sync failed: {}", e.getMessage());
+            return 0;
+        }
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        
+        Map<Long, List<ClaimedTask>> byOrder = claimed.stream().collect(
+                Collectors.groupingBy(ClaimedTask::orderId, LinkedHashMap::new, Collectors.toList()));
+        List<Outcome> outcomes = Flux.fromIterable(byOrder.values())
+                .flatMap(orderTasks -> Flux.fromIterable(orderTasks).concatMap(this::execute), concurrency)
+                .collectList()
+                .block();
+        
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> record(outcomes));
+        } catch (DataAccessException e) {
+            log.error("Failed to record stock sync results, the tasks run again once their claim expires: {}",
+                    e.getMessage());
+        }
+        return claimed.size();
+    }
+    
+    private List<ClaimedTask> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockSyncTask> tasks = taskRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                StockSyncTask.Status.PENDING, now, Limit.of(batchSize));
+        // Stored timestamps may be less precise than the clock, and the claim is matched on its value
+        LocalDateTime claimedUntil = now.plus(claimTimeout).truncatedTo(ChronoUnit.MILLIS);
+        List<ClaimedTask> claimed = new ArrayList<>();
+        Map<Long, List<StockLine>> decrements = new HashMap<>();
+        for (StockSyncTask task : tasks) {
+            if (task.getClaimedUntil() != null && task.getAction() == StockSyncTask.Action.DECREMENT) {
+                // The worker that claimed it stopped without recording a result
+                fail(task, "Outcome unknown, the claim expired and stock may already have been decremented");
+                continue;
+            }
+            task.setClaimedUntil(claimedUntil);
+            task.setNextAttemptAt(claimedUntil);
+            List<StockLine> lines = task.getAction() == StockSyncTask.Action.DECREMENT
+                    ? decrements.computeIfAbsent(task.getOrderId(), this::stockLines)
+                    : null;
+            claimed.add(new ClaimedTask(task.getId(), task.getOrderId(), task.getAction(), claimedUntil, lines));
+        }
+        return claimed;
+    }
+    
+    private Mono<Outcome> execute(ClaimedTask task) {
+        if (task.action() == StockSyncTask.Action.DECREMENT && task.lines().isEmpty()) {
+            return Mono.just(new Outcome(task, null, null));
+        }
+        Mono<StockResponse> call = switch (task.action()) {
+            case COMMIT -> productServiceClient.commitReservation(task.orderId());
+            case RELEASE -> productServiceClient.releaseReservation(task.orderId());
+            case DECREMENT -> productServiceClient.decrementStock(task.lines());
+        };
+        return call.timeout(callTimeout)
+                .map(response -> new Outcome(task, response, null))
+                .switchIfEmpty(Mono.fromSupplier(() ->
+                        new Outcome(task, null, new IllegalStateException("Empty response from product-service"))))
+                .onErrorResume(error -> Mono.just(new Outcome(task, null, error)));
+    }
+    
+    private void record(List<Outcome> outcomes) {
+        Map<Long, StockSyncTask> tasks = taskRepository.findByIdIn(
+                        outcomes.stream().map(outcome -> outcome.task().id()).toList()).stream()
+                .collect(Collectors.toMap(StockSyncTask::getId, Function.identity()));
+        for (Outcome outcome : outcomes) {
+            StockSyncTask task = tasks.get(outcome.task().id());
+            if (task == null || !outcome.task().claimedUntil().equals(task.getClaimedUntil())) {
+                // Deleted, or claimed again after this worker's claim expired
+                log.warn("Claim on stock sync task {} was lost before its result was recorded", outcome.task().id());
+                continue;
+            }
+            task.setClaimedUntil(null);
+            task.setNextAttemptAt(LocalDateTime.now());
+            if (outcome.response() != null) {
+                onResponse(task, outcome.response());
+            } else if (outcome.error() != null) {
+                onError(task, outcome.error());
+            } else {
+                fail(task, "Order not found or has no lines");
+            }
+        }
+        
+        // Only an order's release guard runs while it is still PENDING: its creation was given up.
+        // After the loop, as the status update clears the persistence context.
+        LocalDateTime now = LocalDateTime.now();
+        tasks.values().stream()
+                .filter(task -> task.getAction() == StockSyncTask.Action.RELEASE && task.getStatus() == StockSyncTask.Status.DONE)
+                .map(StockSyncTask::getOrderId)
+                .distinct()
+                .filter(orderId -> orderRepository.compareAndSetStatus(orderId, OrderStatus.PENDING, OrderStatus.FAILED, now) == 1)
+                .forEach(orderId -> log.warn("Order {} was never confirmed, marked it FAILED after releasing its stock", orderId));
+    }
+    
+    private void onResponse(StockSyncTask task, StockResponse response) {
+        if (response.isSuccess()) {
+            task.setStatus(StockSyncTask.Status.DONE);
+            task.setCompletedAt(LocalDateTime.now());
+            task.setLastError(null);
+            log.info("Applied {} of stock for order {}", task.getAction(), task.getOrderId());
+        } else if (task.getAction() == StockSyncTask.Action.COMMIT && response.isNoReservation()) {
+            // Orders placed before reservations existed still decrement stock on delivery
+            task.setAction(StockSyncTask.Action.DECREMENT);
+            task.setAttempts(0);
+            task.setNextAttemptAt(LocalDateTime.now());
+            log.info("Order {} has no stock reservation, decrementing stock instead", task.getOrderId());
+        } else if (task.getAction() == StockSyncTask.Action.RELEASE && response.isNothingHeld()) {
+            task.setStatus(StockSyncTask.Status.DONE);
+            task.setCompletedAt(LocalDateTime.now());
+            task.setLastError(null);
+            log.info("Order {} holds no stock, nothing to release", task.getOrderId());
+        } else {
+            fail(task, "Rejected by product-service: " + response.getResults());
+        }
+    }
+    
+    private void onError(StockSyncTask task, Throwable error) {
+        task.setAttempts(task.getAttempts() + 1);
+        if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            fail(task, "Rejected by product-service: " + response.getStatusCode() + " " + response.getResponseBodyAsString());
+        } else if (task.getAction() == StockSyncTask.Action.DECREMENT && !safeToRepeat(error)) {
+            fail(task, "Outcome unknown, stock may already have been decremented: " + error.getMessage());
+        } else if (task.getAttempts() >= maxAttempts) {
+            fail(task, "Gave up after " + task.getAttempts() + " attempts: " + error.getMessage());
+        } else {
+            Duration delay = backoff(task.getAttempts());
+            task.setNextAttemptAt(LocalDateTime.now().plus(delay));
+            task.setLastError(truncate(error.getMessage()));
+            log.warn("{} of stock for order {} failed (attempt {}), retrying in {} ms: {}", task.getAction(),
+                    task.getOrderId(), task.getAttempts(), delay.toMillis(), error.getMessage());
+        }
+    }
+    
+    private void fail(StockSyncTask task, String reason) {
+        task.setStatus(StockSyncTask.Status.FAILED);
+        task.setCompletedAt(LocalDateTime.now());
+        task.setLastError(truncate(reason));
+        log.error("{} of stock for order {} failed: {}", task.getAction(), task.getOrderId(), reason);
+    }
+    
+    /**
+     * A decrement may only be repeated when product-service certainly did not apply it
+     */
+    private static boolean safeToRepeat(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException && error.getCause() instanceof ConnectException;
+    }
+    
+    private Duration backoff(int attempts) {
+        long millis = Math.min(maxBackoff.toMillis(), retryBackoff.toMillis() << Math.min(attempts - 1, 20));
+        // Between half and all of the exponential delay, so failed tasks do not retry in lockstep
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+    
+    private List<StockLine> stockLines(Long orderId) {
+        return orderRepository.findById(orderId)
+                .map(order -> order.getItems().stream()
+                        .map(item -> new StockLine(item.getProductId(), item.getQuantity()))
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
+    }
+    
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+    
+    /**
+     * What the calls need of a claimed task, so that no entity is touched off the worker thread
+     */
+    private record ClaimedTask(Long id, Long orderId, StockSyncTask.Action action, LocalDateTime claimedUntil,
+                               List<StockLine> lines) {
+    }
+    
+    private record Outcome(ClaimedTask task, StockResponse response, Throwable error) {
+    }
+}
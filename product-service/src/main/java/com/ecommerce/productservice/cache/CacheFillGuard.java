@@ -0,0 +1,105 @@
+package com.ecommerce.productservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps cache fills from outliving the eviction they raced with. Caches are evicted once a
+ * change has committed, so a reader that loaded the previous state can write it back after
+ * the eviction, where it would be served until the TTL. {@link ProductCacheInvalidator}
+ * stamps every eviction here before applying it, per stripe of keys or for a whole cleared
+ * cache, and a fill is only kept if no eviction of its key was stamped after its load began.
+ * When the eviction lands between that check and the write, the writer sees it on a second
+ * check and removes the entry again.
+ */
+@Component
+public class CacheFillGuard {
+
+    private static final int STRIPES = 1024;
+
+    private final long origin = System.nanoTime();
+    private final Map<String, Stamps> stamps = new ConcurrentHashMap<>();
+
+    /**
+     * @return the stamp to pass to {@link #put} once the value has been loaded
+     */
+    public long begin() {
+        return now();
+    }
+
+    /**
+     * For loads that may read state up to {@code staleness} old, such as a replica within its
+     * lag tolerance: evictions during that window also keep the value out of the cache
+     */
+    public long begin(Duration staleness) {
+        return now() - staleness.toNanos();
+    }
+
+    public void evicted(String cacheName, Object key) {
+        stamps(cacheName).evicted(key, now());
+    }
+
+    public void cleared(String cacheName) {
+        stamps(cacheName).cleared(now());
+    }
+
+    /**
+     * Caches a value loaded after {@code loadStart} unless its key was evicted since
+     * @return true if the value was cached
+     */
+    public boolean put(Cache cache, Object key, Object value, long loadStart) {
+        Stamps cacheStamps = stamps(cache.getName());
+        if (!cacheStamps.unchangedSince(key, loadStart)) {
+            return false;
+        }
+        cache.put(key, value);
+        if (!cacheStamps.unchangedSince(key, loadStart)) {
+            cache.evict(key);
+            return false;
+        }
+        return true;
+    }
+
+    private Stamps stamps(String cacheName) {
+        return stamps.computeIfAbsent(cacheName, name -> new Stamps());
+    }
+
+    // Relative to the guard's creation, so stamps do not wrap
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    private static final class Stamps {
+        private final AtomicLong clearedAt = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray evictedAt = new AtomicLongArray(STRIPES);
+
+        private Stamps() {
+            for (int i = 0; i < STRIPES; i++) {
+                evictedAt.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        private void evicted(Object key, long now) {
+            evictedAt.accumulateAndGet(stripe(key), now, Math::max);
+        }
+
+        private void cleared(long now) {
+            clearedAt.accumulateAndGet(now, Math::max);
+        }
+
+        private boolean unchangedSince(Object key, long since) {
+            return clearedAt.get() < since && evictedAt.get(stripe(key)) < since;
+        }
+
+        private static int stripe(Object key) {
+            int hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.productservice.cache;
+
+/**
+ * A response body already serialized to UTF-8 JSON, with a gzipped copy when it is worth
+ * compressing, and the entity tag of the state it was built from.
+ */
+public record EncodedResponse(String etag, byte[] json, byte[] gzip) {
+
+    public int size() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.productservice.cache;
+
+import com.ecommerce.productservice.config.CacheConfig;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Evicts cached products once a change has been committed, whether it was made
+ * on this replica or received from another one. Each eviction is stamped in the
+ * {@link CacheFillGuard} first, so a load that read the previous state cannot put it back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheInvalidator {
+
+    private static final List<String> PRODUCT_CACHES =
+            List.of(CacheConfig.PRODUCTS_CACHE, CacheConfig.ENCODED_PRODUCTS_CACHE);
+    private static final List<String> LIST_CACHES =
+            List.of(CacheConfig.PRODUCT_LISTS_CACHE, CacheConfig.ENCODED_LISTS_CACHE);
+
+    private final CacheManager cacheManager;
+    private final SingleFlight singleFlight;
+    private final CacheFillGuard fillGuard;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (String name : PRODUCT_CACHES) {
+            Cache products = cacheManager.getCache(name);
+            if (products != null) {
+                if (event.getProductId() != null) {
+                    fillGuard.evicted(name, event.getProductId());
+                    products.evict(event.getProductId());
+                } else {
+                    fillGuard.cleared(name);
+                    products.clear();
+                }
+            }
+        }
+
+        for (String name : LIST_CACHES) {
+            Cache lists = cacheManager.getCache(name);
+            if (lists != null) {
+                fillGuard.cleared(name);
+                lists.clear();
+            }
+        }
+
+        singleFlight.forgetAll();
+
+        log.debug("Invalidated product caches for product {}", event.getProductId());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.productservice.cache;
+
+import com.ecommerce.productservice.config.CacheConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes hot responses once and keeps the encoded bytes, so repeated reads skip DTO
+ * conversion and Jackson entirely. A body is tagged with the state it was built from, and
+ * only cached when that tag is the current one; an entry is only served while its tag still
+ * matches the current one, so a change is never hidden by an entry written just before its
+ * invalidation. {@link ProductCacheInvalidator} evicts entries as changes commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseEncoder {
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.cache.encoded.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    /**
+     * @param cacheName   {@link CacheConfig#ENCODED_PRODUCTS_CACHE} or {@link CacheConfig#ENCODED_LISTS_CACHE}
+     * @param currentETag tag of the current state, or null to bypass the cache
+     * @param body        builds the body on a miss
+     * @param etagOf      tag of the state a freshly built body represents
+     */
+    public <T> EncodedResponse get(String cacheName, Object key, String currentETag, Supplier<T> body, Function<T, String> etagOf) {
+        return get(cacheName, key, currentETag, body, etagOf, Function.identity());
+    }
+
+    /**
+     * @param content the part of the built value that is serialized
+     */
+    public <T> EncodedResponse get(String cacheName, Object key, String currentETag, Supplier<T> body,
+                                   Function<T, String> etagOf, Function<T, ?> content) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (currentETag != null && cache != null) {
+            EncodedResponse cached = cache.get(key, EncodedResponse.class);
+            if (cached != null && currentETag.equals(cached.etag())) {
+                return cached;
+            }
+        }
+        T value = body.get();
+        EncodedResponse encoded = encode(etagOf.apply(value), content.apply(value));
+        // A body built from an older state than the current tag is served, but not kept
+        if (currentETag != null && cache != null && currentETag.equals(encoded.etag())) {
+            cache.put(key, encoded);
+        }
+        return encoded;
+    }
+
+    public EncodedResponse encode(String etag, Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new EncodedResponse(etag, json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.productservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-key request coalescing for cache misses. The first caller for a key runs the load;
+ * callers arriving while it is in flight wait for and share its result, or its exception.
+ * Nothing is kept once the load finishes, so caching stays with the caches.
+ * <p>
+ * Counts are published as {@code product.singleflight.calls}, tagged with the query name
+ * and {@code result=load} or {@code result=coalesced}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SingleFlight {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        Key flightKey = new Key(name, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            counter(name, "coalesced").increment();
+            return (T) await(existing);
+        }
+
+        counter(name, "load").increment();
+        try {
+            T value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Callers arriving after this start a new load instead of joining one that began before a change
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter counter(String name, String result) {
+        return Counter.builder("product.singleflight.calls")
+                .tag("query", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Key(String name, Object key) {
+    }
+}
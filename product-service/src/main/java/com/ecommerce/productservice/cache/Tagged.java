@@ -0,0 +1,8 @@
+package com.ecommerce.productservice.cache;
+
+/**
+ * A cached value with the entity tag of the state it was loaded from, or a null tag when
+ * that state cannot be vouched for.
+ */
+public record Tagged<T>(String etag, T value) {
+}
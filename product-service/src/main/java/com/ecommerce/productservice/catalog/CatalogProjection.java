@@ -0,0 +1,30 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+
+/**
+ * An in-memory view of the catalog kept up to date from product change events.
+ * Projections are loaded once on startup by {@link CatalogProjectionLoader}, which then
+ * feeds them every committed change, local or from another replica.
+ */
+public interface CatalogProjection {
+
+    /**
+     * Adds a product or replaces its previous state
+     */
+    void upsert(ProductDTO product);
+
+    void remove(Long productId);
+
+    /**
+     * Called once the initial load has completed
+     */
+    void markReady();
+
+    /**
+     * Drops all state and stops serving until the next {@link #markReady()}
+     */
+    void reset();
+
+    boolean isReady();
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.event.ProductChangeType;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import com.ecommerce.productservice.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Loads every {@link CatalogProjection} from a single pass over the products table and
+ * applies committed product changes to all of them. When a recent {@link CatalogSnapshotStore}
+ * file exists the startup load reads it instead and only queries rows changed since. Changes arriving while the load is
+ * running wait for it, so they are applied on top of the loaded state. A bulk change
+ * reported as {@link ProductChangeType#CATALOG_RELOADED} resets and reloads them all.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogProjectionLoader {
+
+    private final List<CatalogProjection> projections;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final CatalogSnapshotStore snapshotStore;
+
+    // updated_at is stamped by the application clock before commit, so look back a little further
+    @Value("${product.snapshot.catch-up-margin:5m}")
+    private Duration catchUpMargin;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!loadFromSnapshot()) {
+            loadFromDatabase(true);
+        }
+    }
+
+    /**
+     * Warm start: projections are filled from the local snapshot, then rows changed since it
+     * was captured are read back, and products deleted since are dropped
+     */
+    private boolean loadFromSnapshot() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> snapshotVersions = new HashMap<>();
+        // The store already holds these rows; only changes made since should mark it for rewriting
+        List<CatalogProjection> targets = projections.stream()
+                .filter(projection -> projection != snapshotStore)
+                .toList();
+        LocalDateTime capturedAt;
+        try {
+            capturedAt = snapshotStore.read(product -> {
+                snapshotVersions.put(product.getId(), product.getVersion());
+                targets.forEach(projection -> projection.upsert(product));
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding unreadable catalog snapshot: {}", e.getMessage());
+            projections.forEach(CatalogProjection::reset);
+            return false;
+        }
+        if (capturedAt == null) {
+            projections.forEach(CatalogProjection::reset);
+            return false;
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        Long changed = transaction.execute(status -> {
+            long applied = 0;
+            try (Stream<ProductDTO> products = productRepository.streamUpdatedSince(capturedAt.minus(catchUpMargin))) {
+                for (Iterator<ProductDTO> it = products.iterator(); it.hasNext(); applied++) {
+                    ProductDTO product = it.next();
+                    targets.forEach(projection -> projection.upsert(product));
+                    // Rows within the catch-up margin are often the ones the snapshot already has
+                    if (!Objects.equals(snapshotVersions.get(product.getId()), product.getVersion())) {
+                        snapshotStore.upsert(product);
+                    }
+                }
+            }
+            try (Stream<Long> ids = productRepository.streamIds()) {
+                ids.forEach(snapshotVersions::remove);
+            }
+            return applied;
+        });
+        Set<Long> deletedIds = snapshotVersions.keySet();
+        deletedIds.forEach(id -> projections.forEach(projection -> projection.remove(id)));
+        projections.forEach(CatalogProjection::markReady);
+        log.info("Loaded {} catalog projections from snapshot taken at {}, caught up {} changed and {} deleted products in {} ms",
+                projections.size(), capturedAt, changed, deletedIds.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * @param readOnly read-only transactions may be served by a replica, which can lag behind a change
+     */
+    private void loadFromDatabase(boolean readOnly) {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        Long count = transaction.execute(status -> {
+            long loaded = 0;
+            try (Stream<ProductDTO> products = productRepository.streamAll()) {
+                for (Iterator<ProductDTO> it = products.iterator(); it.hasNext(); loaded++) {
+                    ProductDTO product = it.next();
+                    projections.forEach(projection -> projection.upsert(product));
+                }
+            }
+            return loaded;
+        });
+        projections.forEach(CatalogProjection::markReady);
+        log.info("Loaded {} catalog projections from {} products in {} ms",
+                projections.size(), count, System.currentTimeMillis() - start);
+    }
+
+    // Ahead of the cache eviction: a list loaded after its eviction must not carry the previous catalog tag
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangeType.CATALOG_RELOADED) {
+            // The snapshot and the replicas may predate the bulk change, so rebuild from the primary
+            projections.forEach(CatalogProjection::reset);
+            loadFromDatabase(false);
+        } else if (event.getChangeType() == ProductChangeType.DELETED) {
+            projections.forEach(projection -> projection.remove(event.getProductId()));
+        } else if (event.getProduct() != null) {
+            projections.forEach(projection -> projection.upsert(event.getProduct()));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Binary copy of the catalog on local disk, used to warm the catalog projections on
+ * restart without scanning the products table.
+ * <p>
+ * Layout: a header (magic, format version, capture time in epoch millis, row count)
+ * followed by one record per product: id, version, price in cents, stock and reserved
+ * quantity, an availability byte, then name, category, description and image URL as
+ * length-prefixed UTF-8 (length -1 for null). The file is written to a temporary file and
+ * moved into place atomically, and read back through a read-only memory mapping, so a
+ * restart decodes straight from the page cache. Derived indexes are rebuilt from the rows.
+ * <p>
+ * As a projection the store keeps every product's encoded record in memory, so a rewrite
+ * only concatenates them and never goes back to the database.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshotStore implements CatalogProjection {
+
+    private static final int MAGIC = 0x50435331; // "PCS1"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<Long, byte[]> records = new ConcurrentHashMap<>();
+
+    @Value("${product.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.snapshot.path:/var/lib/product-service/product-catalog.snapshot}")
+    private Path path;
+
+    @Value("${product.snapshot.max-age:6h}")
+    private Duration maxAge;
+
+    private volatile boolean dirty;
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public void reset() {
+        ready = false;
+        records.clear();
+        dirty = true;
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        records.put(product.getId(), encode(product));
+        dirty = true;
+    }
+
+    @Override
+    public void remove(Long productId) {
+        records.remove(productId);
+        dirty = true;
+    }
+
+    /**
+     * Decodes the snapshot into the consumer and keeps its records as the store's own rows,
+     * without marking it for rewriting.
+     * @return the time the snapshot was captured, or null if there is no usable snapshot
+     */
+    public LocalDateTime read(Consumer<ProductDTO> consumer) throws IOException {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.warn("Ignoring catalog snapshot {} with unknown format", path);
+                return null;
+            }
+            Instant capturedAt = Instant.ofEpochMilli(buffer.getLong());
+            if (capturedAt.isBefore(Instant.now().minus(maxAge))) {
+                log.info("Ignoring catalog snapshot {} captured at {}", path, capturedAt);
+                return null;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int offset = buffer.position();
+                ProductDTO product = readProduct(buffer);
+                byte[] record = new byte[buffer.position() - offset];
+                buffer.get(offset, record);
+                records.put(product.getId(), record);
+                consumer.accept(product);
+            }
+            return LocalDateTime.ofInstant(capturedAt, ZoneId.systemDefault());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated catalog snapshot " + path, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.snapshot.interval-ms:300000}",
+            initialDelayString = "${product.snapshot.interval-ms:300000}")
+    public void writeIfChanged() {
+        if (enabled && ready && dirty) {
+            write();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeIfChanged();
+    }
+
+    /**
+     * Writes the records held in memory to a new snapshot file
+     */
+    public synchronized void write() {
+        dirty = false;
+        long start = System.currentTimeMillis();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            int count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                // Changes applied while the records are copied may be missing; the capture time is taken before
+                out.writeLong(start);
+                out.writeInt(0);
+                for (byte[] record : records.values()) {
+                    out.write(record);
+                    count++;
+                }
+            }
+            patchCount(temporary, count);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote catalog snapshot of {} products to {} in {} ms",
+                    count, path, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            dirty = true;
+            log.error("Failed to write catalog snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static void patchCount(Path file, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, 20);
+            header.putInt(16, count);
+            header.force();
+        }
+    }
+
+    private static byte[] encode(ProductDTO product) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeProduct(out, product);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeProduct(DataOutputStream out, ProductDTO product) throws IOException {
+        out.writeLong(product.getId());
+        out.writeLong(product.getVersion() != null ? product.getVersion() : 0L);
+        out.writeLong(product.getPrice().movePointRight(2).longValueExact());
+        out.writeInt(product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+        out.writeInt(product.getReservedQuantity() != null ? product.getReservedQuantity() : 0);
+        out.writeByte(Boolean.TRUE.equals(product.getAvailable()) ? 1 : 0);
+        writeString(out, product.getName());
+        writeString(out, product.getCategory());
+        writeString(out, product.getDescription());
+        writeString(out, product.getImageUrl());
+    }
+
+    private static ProductDTO readProduct(MappedByteBuffer buffer) {
+        ProductDTO product = new ProductDTO();
+        product.setId(buffer.getLong());
+        product.setVersion(buffer.getLong());
+        product.setPrice(BigDecimal.valueOf(buffer.getLong(), 2));
+        product.setStockQuantity(buffer.getInt());
+        product.setReservedQuantity(buffer.getInt());
+        product.setAvailable(buffer.get() == 1);
+        product.setName(readString(buffer));
+        product.setCategory(readString(buffer));
+        product.setDescription(readString(buffer));
+        product.setImageUrl(readString(buffer));
+        return product;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
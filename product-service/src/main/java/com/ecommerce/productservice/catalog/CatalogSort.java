@@ -0,0 +1,8 @@
+package com.ecommerce.productservice.catalog;
+
+public enum CatalogSort {
+    NAME,
+    PRICE_ASC,
+    PRICE_DESC,
+    STOCK_DESC
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entity tags for conditional GETs, answered without touching the database.
+ * A product's tag is derived from its row version. The catalog tag covers every list
+ * endpoint; it is a counter bumped on each applied change, prefixed with a per-process
+ * epoch so that tags from different replicas or restarts never collide.
+ */
+@Component
+public class CatalogVersions implements CatalogProjection {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<Long, Long> productVersions = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public void reset() {
+        ready = false;
+        productVersions.clear();
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        if (product.getVersion() != null) {
+            // Changes can be delivered out of commit order; a version never goes back
+            Long stored = productVersions.merge(product.getId(), product.getVersion(), Math::max);
+            if (stored > product.getVersion()) {
+                return;
+            }
+        }
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void remove(Long productId) {
+        productVersions.remove(productId);
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * @return the product's current tag, or null if it is not known here yet
+     */
+    public String productETag(Long productId) {
+        Long version = ready ? productVersions.get(productId) : null;
+        return version != null ? productETag(productId, version) : null;
+    }
+
+    /**
+     * @return the catalog-wide tag, or null until the initial load has completed
+     */
+    public String catalogETag() {
+        return ready ? "\"catalog-" + epoch + "-" + catalogVersion.get() + "\"" : null;
+    }
+
+    public static String productETag(Long productId, Long version) {
+        return "\"" + productId + "-" + version + "\"";
+    }
+}
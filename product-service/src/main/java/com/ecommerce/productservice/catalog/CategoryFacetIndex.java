@@ -0,0 +1,143 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.CatalogFacets;
+import com.ecommerce.productservice.dto.CategoryFacet;
+import com.ecommerce.productservice.dto.PriceBucket;
+import com.ecommerce.productservice.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Per-category product counts, available counts and price-range histograms.
+ * Each product's contribution is remembered so that a change only subtracts the old
+ * contribution and adds the new one; reading the facets costs O(categories x buckets).
+ */
+@Component
+@Slf4j
+public class CategoryFacetIndex implements CatalogProjection {
+
+    private final BigDecimal[] priceBoundaries;
+
+    // category -> running totals
+    private final Map<String, Counts> categories = new HashMap<>();
+    // product id -> what it currently adds to the totals
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public CategoryFacetIndex(@Value("${product.facets.price-boundaries:25,50,100,250,500,1000}")
+                              BigDecimal[] priceBoundaries) {
+        this.priceBoundaries = priceBoundaries.clone();
+        Arrays.sort(this.priceBoundaries);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+        log.info("Category facets built: {} products in {} categories", contributions.size(), categories.size());
+    }
+
+    @Override
+    public synchronized void reset() {
+        ready = false;
+        categories.clear();
+        contributions.clear();
+    }
+
+    @Override
+    public synchronized void upsert(ProductDTO product) {
+        Contribution next = new Contribution(product.getCategory(),
+                Boolean.TRUE.equals(product.getAvailable()), bucketOf(product.getPrice()));
+        Contribution previous = contributions.put(product.getId(), next);
+        if (next.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(next, 1);
+    }
+
+    @Override
+    public synchronized void remove(Long productId) {
+        Contribution previous = contributions.remove(productId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    public synchronized CatalogFacets getFacets() {
+        long total = 0;
+        long available = 0;
+        List<CategoryFacet> facets = new ArrayList<>(categories.size());
+        for (Map.Entry<String, Counts> entry : categories.entrySet()) {
+            Counts counts = entry.getValue();
+            total += counts.products;
+            available += counts.available;
+            facets.add(new CategoryFacet(entry.getKey(), counts.products, counts.available, priceBuckets(counts)));
+        }
+        facets.sort(Comparator.comparing(CategoryFacet::getCategory));
+        return new CatalogFacets(total, available, facets);
+    }
+
+    /**
+     * One-off aggregation with the same buckets, for use before the index is ready
+     */
+    public CatalogFacets aggregate(Stream<ProductDTO> products) {
+        CategoryFacetIndex scratch = new CategoryFacetIndex(priceBoundaries);
+        products.forEach(scratch::upsert);
+        return scratch.getFacets();
+    }
+
+    private void apply(Contribution contribution, int delta) {
+        Counts counts = categories.computeIfAbsent(contribution.category,
+                category -> new Counts(priceBoundaries.length + 1));
+        counts.products += delta;
+        if (contribution.available) {
+            counts.available += delta;
+        }
+        counts.buckets[contribution.bucket] += delta;
+        if (counts.products == 0) {
+            categories.remove(contribution.category);
+        }
+    }
+
+    private List<PriceBucket> priceBuckets(Counts counts) {
+        List<PriceBucket> buckets = new ArrayList<>(counts.buckets.length);
+        for (int i = 0; i < counts.buckets.length; i++) {
+            BigDecimal min = i == 0 ? BigDecimal.ZERO : priceBoundaries[i - 1];
+            BigDecimal max = i < priceBoundaries.length ? priceBoundaries[i] : null;
+            buckets.add(new PriceBucket(min, max, counts.buckets[i]));
+        }
+        return buckets;
+    }
+
+    private int bucketOf(BigDecimal price) {
+        int index = Arrays.binarySearch(priceBoundaries, price);
+        // A price equal to a boundary opens the next bucket
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private record Contribution(String category, boolean available, int bucket) {
+    }
+
+    private static final class Counts {
+        private long products;
+        private long available;
+        private final long[] buckets;
+
+        private Counts(int bucketCount) {
+            this.buckets = new long[bucketCount];
+        }
+    }
+}
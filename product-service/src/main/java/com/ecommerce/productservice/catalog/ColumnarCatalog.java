@@ -0,0 +1,308 @@
+package com.ecommerce.productservice.catalog;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented copy of the products table for filter and sort queries.
+ * Every product occupies a slot across parallel primitive arrays: id, price in cents,
+ * available-to-sell stock, a dictionary-encoded category and an availability bit.
+ * A filter is a single pass over the arrays; price and stock sorts pack the sort key
+ * and the slot into one long and sort those, and name order is a slot permutation
+ * that is rebuilt lazily after names change. Queries allocate per request, never per product.
+ */
+@Component
+@Slf4j
+public class ColumnarCatalog implements CatalogProjection {
+
+    private static final int SLOT_BITS = 24;
+    private static final int MAX_SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = MAX_SLOTS - 1;
+    // sort keys share a long with the slot number
+    private static final long MAX_SORT_KEY = (1L << (63 - SLOT_BITS)) - 1;
+    private static final int NO_CATEGORY = -1;
+    private static final int UNKNOWN_CATEGORY = -2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[1024];
+    private long[] priceCents = new long[1024];
+    private int[] stock = new int[1024];
+    private int[] categories = new int[1024];
+    private String[] names = new String[1024];
+    private final BitSet available = new BitSet();
+    private final BitSet live = new BitSet();
+
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slotCount;
+
+    // live slots ordered by name, rebuilt on demand
+    private int[] nameOrder = new int[0];
+    private boolean nameOrderStale = true;
+
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+        log.info("Columnar catalog built: {} products, {} categories", slotsById.size(), categoryCodes.size());
+    }
+
+    @Override
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            live.clear();
+            available.clear();
+            Arrays.fill(names, null);
+            slotsById.clear();
+            categoryCodes.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            nameOrder = new int[0];
+            nameOrderStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(product.getId());
+            if (slot == null) {
+                slot = allocateSlot();
+                slotsById.put(product.getId(), slot);
+                nameOrderStale = true;
+            } else if (!Objects.equals(names[slot], product.getName())) {
+                nameOrderStale = true;
+            }
+            ids[slot] = product.getId();
+            priceCents[slot] = toCents(product.getPrice());
+            stock[slot] = product.getAvailableToSell();
+            categories[slot] = categoryCodes.computeIfAbsent(product.getCategory(), c -> categoryCodes.size());
+            names[slot] = product.getName();
+            available.set(slot, Boolean.TRUE.equals(product.getAvailable()));
+            live.set(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(productId);
+            if (slot != null) {
+                live.clear(slot);
+                available.clear(slot);
+                names[slot] = null;
+                freeSlots.push(slot);
+                nameOrderStale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param category       exact category, or null for all
+     * @param minPrice       inclusive lower bound, or null
+     * @param maxPrice       inclusive upper bound, or null
+     * @param availableOnly  only products flagged available
+     * @return ids of the requested page in sort order, and the total number of matches
+     */
+    public Slice query(String category, BigDecimal minPrice, BigDecimal maxPrice, boolean availableOnly,
+                       CatalogSort sort, int offset, int limit) {
+        lock.readLock().lock();
+        if (sort == CatalogSort.NAME && nameOrderStale) {
+            // Rebuild under the write lock, then downgrade so that no write lands before the read
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                refreshNameOrder();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            int categoryCode = category == null ? NO_CATEGORY : categoryCodes.getOrDefault(category, UNKNOWN_CATEGORY);
+            if (categoryCode == UNKNOWN_CATEGORY) {
+                return new Slice(new long[0], 0);
+            }
+            Filter filter = new Filter(categoryCode,
+                    minPrice == null ? Long.MIN_VALUE : toCents(minPrice),
+                    maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice),
+                    availableOnly);
+            return switch (sort) {
+                case NAME -> queryByName(filter, offset, limit);
+                case PRICE_ASC, PRICE_DESC, STOCK_DESC -> queryByKey(filter, sort, offset, limit);
+            };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One-off query over a scratch snapshot, for use before the catalog is ready
+     */
+    public Slice query(Stream<ProductDTO> products, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                       boolean availableOnly, CatalogSort sort, int offset, int limit) {
+        ColumnarCatalog scratch = new ColumnarCatalog();
+        products.forEach(scratch::upsert);
+        return scratch.query(category, minPrice, maxPrice, availableOnly, sort, offset, limit);
+    }
+
+    private Slice queryByName(Filter filter, int offset, int limit) {
+        long[] page = new long[limit];
+        int total = 0;
+        int filled = 0;
+        for (int slot : nameOrder) {
+            // Slots freed since the order was built are skipped
+            if (live.get(slot) && filter.matches(slot)) {
+                if (total >= offset && filled < limit) {
+                    page[filled++] = ids[slot];
+                }
+                total++;
+            }
+        }
+        return new Slice(Arrays.copyOf(page, filled), total);
+    }
+
+    private Slice queryByKey(Filter filter, CatalogSort sort, int offset, int limit) {
+        long[] keys = new long[slotsById.size()];
+        int total = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            if (filter.matches(slot)) {
+                long key = switch (sort) {
+                    case PRICE_ASC -> priceCents[slot];
+                    case PRICE_DESC -> MAX_SORT_KEY - priceCents[slot];
+                    case STOCK_DESC -> Integer.MAX_VALUE - (long) stock[slot];
+                    case NAME -> throw new IllegalArgumentException(sort.name());
+                };
+                keys[total++] = key << SLOT_BITS | slot;
+            }
+        }
+        Arrays.sort(keys, 0, total);
+
+        int end = (int) Math.min((long) offset + limit, total);
+        long[] page = new long[Math.max(end - offset, 0)];
+        for (int i = offset; i < end; i++) {
+            page[i - offset] = ids[(int) (keys[i] & SLOT_MASK)];
+        }
+        return new Slice(page, total);
+    }
+
+    // Caller holds the write lock
+    private void refreshNameOrder() {
+        if (!nameOrderStale) {
+            return;
+        }
+        int[] order = new int[slotsById.size()];
+        int i = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            order[i++] = slot;
+        }
+        sortByName(order, new int[order.length], 0, order.length);
+        nameOrder = order;
+        nameOrderStale = false;
+    }
+
+    /**
+     * Stable merge sort of slots by name, then id, on primitive ints so that no slot is boxed
+     */
+    private void sortByName(int[] slots, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortByName(slots, buffer, from, mid);
+        sortByName(slots, buffer, mid, to);
+        if (compareByName(slots[mid - 1], slots[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(slots, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int k = from; k < to; k++) {
+            if (right >= to || left < mid && compareByName(buffer[left], buffer[right]) <= 0) {
+                slots[k] = buffer[left++];
+            } else {
+                slots[k] = buffer[right++];
+            }
+        }
+    }
+
+    private int compareByName(int a, int b) {
+        int byName = String.CASE_INSENSITIVE_ORDER.compare(names[a], names[b]);
+        return byName != 0 ? byName : Long.compare(ids[a], ids[b]);
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (slotCount == MAX_SLOTS) {
+            throw new IllegalStateException("Columnar catalog is limited to " + MAX_SLOTS + " products");
+        }
+        if (slotCount == ids.length) {
+            int capacity = Math.min(ids.length * 2, MAX_SLOTS);
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        return slotCount++;
+    }
+
+    private static long toCents(BigDecimal price) {
+        long cents = price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        return Math.max(0, Math.min(cents, MAX_SORT_KEY));
+    }
+
+    /**
+     * Page of matching ids plus the total match count
+     */
+    public record Slice(long[] ids, int total) {
+    }
+
+    private final class Filter {
+        private final int categoryCode;
+        private final long minCents;
+        private final long maxCents;
+        private final boolean availableOnly;
+
+        private Filter(int categoryCode, long minCents, long maxCents, boolean availableOnly) {
+            this.categoryCode = categoryCode;
+            this.minCents = minCents;
+            this.maxCents = maxCents;
+            this.availableOnly = availableOnly;
+        }
+
+        private boolean matches(int slot) {
+            return (categoryCode == NO_CATEGORY || categories[slot] == categoryCode)
+                    && priceCents[slot] >= minCents && priceCents[slot] <= maxCents
+                    && (!availableOnly || available.get(slot));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.productservice.config;
+
+import com.ecommerce.productservice.cache.EncodedResponse;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-process product caches backed by Caffeine (W-TinyLFU eviction).
+ * Entries are evicted by {@link com.ecommerce.productservice.cache.ProductCacheInvalidator}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String PRODUCT_LISTS_CACHE = "productLists";
+    public static final String ENCODED_PRODUCTS_CACHE = "encodedProducts";
+    public static final String ENCODED_LISTS_CACHE = "encodedLists";
+
+    public static final String ALL_PRODUCTS_KEY = "all";
+    public static final String AVAILABLE_PRODUCTS_KEY = "available";
+    public static final String CATEGORY_KEY_PREFIX = "category:";
+
+    @Value("${product.cache.products.max-size:10000}")
+    private long productsMaxSize;
+
+    @Value("${product.cache.lists.max-size:200}")
+    private long listsMaxSize;
+
+    @Value("${product.cache.encoded.max-bytes:67108864}")
+    private long encodedMaxBytes;
+
+    @Value("${product.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(productsMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(PRODUCT_LISTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(listsMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        // Encoded bodies are bounded by size; lists share the budget with single products
+        cacheManager.registerCustomCache(ENCODED_PRODUCTS_CACHE, encodedCache(encodedMaxBytes / 2));
+        cacheManager.registerCustomCache(ENCODED_LISTS_CACHE, encodedCache(encodedMaxBytes / 2));
+        return cacheManager;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> encodedCache(long maxBytes) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Object value) -> ((EncodedResponse) value).size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.productservice.config;
+
+import com.ecommerce.productservice.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary plus optional read replicas.
+ * Transactions marked read-only are served by a replica within the lag tolerance, all
+ * other work goes to the primary. Connections are only borrowed when the first statement
+ * runs, so a transaction that never reaches the database does not hold one.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${product.datasource.replica-urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${product.datasource.replica-pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${product.datasource.max-replica-lag:5s}")
+    private Duration maxReplicaLag;
+
+    @Value("${product.datasource.lag-check-interval-ms:2000}")
+    private long lagCheckIntervalMs;
+
+    // Milliseconds behind the primary; zero once everything received has been replayed
+    @Value("${product.datasource.replica-lag-query:SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END}")
+    private String replicaLagQuery;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                        DataSourceProperties properties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, maxReplicaLag,
+                Duration.ofMillis(lagCheckIntervalMs), replicaLagQuery);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.productservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ Configuration for Product Service
+ * Product changes are published to a topic exchange; every replica binds its own
+ * exclusive queue to it so that local caches are invalidated across replicas.
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    public static final String PRODUCT_EXCHANGE = "product.exchange";
+    public static final String PRODUCT_ROUTING_KEY_PREFIX = "product.";
+    public static final String PRODUCT_ALL_ROUTING_KEY = "product.#";
+
+    @Bean
+    public TopicExchange productExchange() {
+        return new TopicExchange(PRODUCT_EXCHANGE);
+    }
+
+    /**
+     * Per-replica, auto-delete queue receiving every product change
+     */
+    @Bean
+    public Queue productChangesQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("product.changes."));
+    }
+
+    @Bean
+    public Binding productChangesBinding() {
+        return BindingBuilder.bind(productChangesQueue())
+                .to(productExchange())
+                .with(PRODUCT_ALL_ROUTING_KEY);
+    }
+
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+        RabbitTemplate template = new RabbitTemplate(connectionFactory);
+        template.setMessageConverter(jsonMessageConverter());
+        return template;
+    }
+}
@@ -1,15 +1,43 @@
 package com.ecommerce.productservice.controller;
 
+import com.ecommerce.productservice.cache.EncodedResponse;
+import com.ecommerce.productservice.cache.ResponseEncoder;
+import com.ecommerce.productservice.cache.Tagged;
+import com.ecommerce.productservice.catalog.CatalogSort;
+import com.ecommerce.productservice.catalog.CatalogVersions;
+import com.ecommerce.productservice.config.CacheConfig;
+import com.ecommerce.productservice.dto.BatchStockUpdateRequest;
+import com.ecommerce.productservice.dto.BatchStockUpdateResponse;
+import com.ecommerce.productservice.dto.CatalogFacets;
+import com.ecommerce.productservice.dto.FilteredProducts;
+import com.ecommerce.productservice.dto.ImportReport;
+import com.ecommerce.productservice.dto.ProductBatchResponse;
 import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.dto.ProductPage;
+import com.ecommerce.productservice.service.ProductImportService;
 import com.ecommerce.productservice.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
@@ -17,31 +45,124 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
+    private final ResponseEncoder responseEncoder;
+    
+    @Value("${product.batch.max-ids:500}")
+    private int maxBatchIds;
     
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<byte[]> getAllProducts(WebRequest request) {
+        return encodedCatalogResponse(request, CacheConfig.ALL_PRODUCTS_KEY, productService::getAllProducts);
+    }
+    
+    @GetMapping("/page")
+    public ResponseEntity<ProductPage> getProductsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        return catalogResponse(request, () -> productService.getProductsPage(after, size));
+    }
+    
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjson(out -> productService.streamAllProducts(ndjsonWriter(out)));
+    }
+    
+    @GetMapping("/snapshot")
+    public ResponseEntity<StreamingResponseBody> streamSnapshots() {
+        return ndjson(out -> productService.streamSnapshots(ndjsonWriter(out)));
+    }
+    
+    @GetMapping("/filter")
+    public ResponseEntity<FilteredProducts> filterProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "NAME") CatalogSort sort,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        return catalogResponse(request, () -> productService.filterProducts(
+                category, minPrice, maxPrice, availableOnly, sort, offset, size));
+    }
+    
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacets> getCatalogFacets(WebRequest request) {
+        return catalogResponse(request, productService::getCatalogFacets);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id, WebRequest request) {
+        String etag = productService.getProductETag(id);
+        if (notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        EncodedResponse body = responseEncoder.get(CacheConfig.ENCODED_PRODUCTS_CACHE, id, etag,
+                () -> productService.getProductById(id),
+                product -> CatalogVersions.productETag(product.getId(), product.getVersion()));
+        return encoded(request, body);
+    }
+    
+    @GetMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam List<Long> ids) {
+        return batchResponse(ids);
+    }
+    
+    /**
+     * Same as the GET form, for id lists too long for a query string
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIdsPost(@RequestBody List<Long> ids) {
+        return batchResponse(ids);
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category));
+    public ResponseEntity<byte[]> getProductsByCategory(@PathVariable String category, WebRequest request) {
+        return encodedCatalogResponse(request, CacheConfig.CATEGORY_KEY_PREFIX + category,
+                () -> productService.getProductsByCategory(category));
+    }
+    
+    @GetMapping("/category/{category}/page")
+    public ResponseEntity<ProductPage> getProductsByCategoryPage(
+            @PathVariable String category,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        return catalogResponse(request, () -> productService.getProductsByCategoryPage(category, after, size));
+    }
+    
+    @GetMapping("/category/{category}/stream")
+    public ResponseEntity<StreamingResponseBody> streamProductsByCategory(@PathVariable String category) {
+        return ndjson(out -> productService.streamProductsByCategory(category, ndjsonWriter(out)));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String keyword, WebRequest request) {
+        return catalogResponse(request, () -> productService.searchProducts(keyword));
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<ProductDTO>> getAvailableProducts() {
-        return ResponseEntity.ok(productService.getAvailableProducts());
+    public ResponseEntity<byte[]> getAvailableProducts(WebRequest request) {
+        return encodedCatalogResponse(request, CacheConfig.AVAILABLE_PRODUCTS_KEY, productService::getAvailableProducts);
+    }
+    
+    @GetMapping("/available/page")
+    public ResponseEntity<ProductPage> getAvailableProductsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        return catalogResponse(request, () -> productService.getAvailableProductsPage(after, size));
+    }
+    
+    @GetMapping("/available/stream")
+    public ResponseEntity<StreamingResponseBody> streamAvailableProducts() {
+        return ndjson(out -> productService.streamAvailableProducts(ndjsonWriter(out)));
     }
     
     @PostMapping
@@ -50,6 +171,16 @@ public class ProductController {
                 .body(productService.createProduct(productDTO));
     }
     
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(body, ProductImportService.Format.NDJSON));
+    }
+    
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(body, ProductImportService.Format.CSV));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(
             @PathVariable Long id,
@@ -71,4 +202,127 @@ public class ProductController {
         boolean success = productService.updateStock(id, quantity);
         return ResponseEntity.ok(Map.of("success", success));
     }
+    
+    @PutMapping("/{id}/hot-stock")
+    public ResponseEntity<Map<String, Object>> setHotStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Boolean> request) {
+        boolean enabled = Boolean.TRUE.equals(request.get("enabled"));
+        return ResponseEntity.ok(productService.setHotStock(id, enabled));
+    }
+    
+    @PutMapping("/stock/batch")
+    public ResponseEntity<BatchStockUpdateResponse> updateStockBatch(
+            @Valid @RequestBody BatchStockUpdateRequest request) {
+        return ResponseEntity.ok(productService.updateStockBatch(request.getItems()));
+    }
+    
+    /**
+     * Answers with 304 when the client already holds the current catalog version; the tag
+     * is read before the body is built, so a concurrent change can only make it look older
+     */
+    private <T> ResponseEntity<T> catalogResponse(WebRequest request, Supplier<T> body) {
+        String etag = productService.getCatalogETag();
+        if (etag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+    
+    /**
+     * Like {@link #catalogResponse}, but the body is served from pre-encoded bytes and tagged
+     * with the catalog state its list was loaded from, which may be older than the current one
+     */
+    private ResponseEntity<byte[]> encodedCatalogResponse(WebRequest request, String key,
+                                                          Supplier<Tagged<List<ProductDTO>>> body) {
+        String etag = productService.getCatalogETag();
+        if (notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return encoded(request, responseEncoder.get(CacheConfig.ENCODED_LISTS_CACHE, key, etag, body,
+                Tagged::etag, Tagged::value));
+    }
+    
+    /**
+     * If-None-Match check for the encoded endpoints. Unlike {@link WebRequest#checkNotModified},
+     * it leaves the response headers alone, so a body can go out with its own, older tag or with none.
+     */
+    private static boolean notModified(WebRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (etag == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Writes the encoded bytes as they are, gzipped when the client accepts it and a compressed copy exists
+     */
+    private ResponseEntity<byte[]> encoded(WebRequest request, EncodedResponse body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (body.etag() != null) {
+            response.eTag(body.etag()).cacheControl(CacheControl.noCache());
+        }
+        if (body.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+    
+    private ResponseEntity<ProductBatchResponse> batchResponse(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > maxBatchIds || ids.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    /**
+     * Writes each product as one JSON line as soon as it is read from the cursor
+     */
+    private <T> Consumer<T> ndjsonWriter(OutputStream out) {
+        return item -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
 }
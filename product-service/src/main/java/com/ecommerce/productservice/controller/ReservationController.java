@@ -0,0 +1,35 @@
+package com.ecommerce.productservice.controller;
+
+import com.ecommerce.productservice.dto.ReservationRequest;
+import com.ecommerce.productservice.dto.ReservationResponse;
+import com.ecommerce.productservice.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/products/reservations")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReservationController {
+    
+    private final ReservationService reservationService;
+    
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody ReservationRequest request) {
+        ReservationResponse response = reservationService.reserve(request);
+        return ResponseEntity.status(response.isSuccess() ? HttpStatus.CREATED : HttpStatus.CONFLICT).body(response);
+    }
+    
+    @PostMapping("/{orderId}/commit")
+    public ResponseEntity<ReservationResponse> commit(@PathVariable Long orderId) {
+        return ResponseEntity.ok(reservationService.commit(orderId));
+    }
+    
+    @PostMapping("/{orderId}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable Long orderId) {
+        return ResponseEntity.ok(reservationService.release(orderId));
+    }
+}
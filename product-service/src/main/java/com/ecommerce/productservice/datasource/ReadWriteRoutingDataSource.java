@@ -0,0 +1,125 @@
+package com.ecommerce.productservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ * Replicas are polled for their replication lag; one that lags by more than the
+ * tolerance, or cannot be reached, is skipped until it catches up, and reads fall back
+ * to the primary when no replica is usable.
+ * <p>
+ * The routing decision reads the transaction's read-only flag, which is only set once
+ * the transaction has begun, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration lagCheckInterval;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools,
+                                      Duration maxLag, Duration lagCheckInterval, String lagQuery) {
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.lagCheckInterval = lagCheckInterval;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.name(), replica.pool));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.usable) {
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * How far behind the primary the current transaction's reads may be: zero on the primary,
+     * otherwise the lag tolerance plus the time a replica can fall behind between two checks
+     */
+    public Duration readStaleness() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Duration.ZERO;
+        }
+        return maxLag.plus(lagCheckInterval);
+    }
+
+    @Scheduled(fixedDelayString = "${product.datasource.lag-check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean usable;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                long lagMs = result.next() ? result.getLong(1) : Long.MAX_VALUE;
+                usable = lagMs <= maxLag.toMillis();
+                if (!usable && replica.usable) {
+                    log.warn("Replica {} is {} ms behind, routing its reads elsewhere", replica.name(), lagMs);
+                }
+            } catch (SQLException e) {
+                usable = false;
+                if (replica.usable) {
+                    log.warn("Replica {} is unreachable, routing its reads elsewhere: {}", replica.name(), e.getMessage());
+                }
+            }
+            if (usable && !replica.usable) {
+                log.info("Replica {} is usable", replica.name());
+            }
+            replica.usable = usable;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        // Not usable until the first lag check has passed
+        private volatile boolean usable;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        private String name() {
+            return pool.getPoolName();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an all-or-nothing batch stock update.
+ * {@code success} is true only if every line was applied; otherwise nothing was.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockUpdateResponse {
+    private boolean success;
+    private List<StockUpdateResult> results;
+}
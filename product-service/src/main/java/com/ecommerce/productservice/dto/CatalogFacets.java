@@ -0,0 +1,16 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogFacets {
+    private long totalProducts;
+    private long availableProducts;
+    private List<CategoryFacet> categories;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryFacet {
+    private String category;
+    private long productCount;
+    private long availableCount;
+    private List<PriceBucket> priceBuckets;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a filtered and sorted product query, with the total number of matches
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilteredProducts {
+    private List<ProductDTO> items;
+    private int total;
+    private int offset;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units of a hot stock lease to write back: sold units leave stock, returned units go back
+ * to available-to-sell, and both leave the lease
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockSettlement {
+    private Long productId;
+    private int sold;
+    private int returned;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Only the first errors are listed; {@code failed} counts them all.
+ */
+@Data
+@NoArgsConstructor
+public class ImportReport {
+    private long received;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<ImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long durationMs;
+}
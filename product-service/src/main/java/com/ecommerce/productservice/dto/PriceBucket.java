@@ -0,0 +1,19 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of products priced in {@code [min, max)}; {@code max} is null for the last bucket
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucket {
+    private BigDecimal min;
+    private BigDecimal max;
+    private long count;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Multi-get result: one entry per requested id in request order, plus the ids that were not found
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    private List<ProductLookup> items;
+    private List<Long> missingIds;
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.productservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +12,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class ProductDTO {
     private Long id;
     
@@ -30,4 +33,20 @@ public class ProductDTO {
     
     private String imageUrl;
     private Boolean available;
+    
+    /**
+     * Units held by reservations. Stock leased to hot stock counters is not included:
+     * the counters still sell it, so it stays in available-to-sell.
+     */
+    private Integer reservedQuantity;
+    
+    private Long version;
+    
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Integer getAvailableToSell() {
+        if (stockQuantity == null) {
+            return null;
+        }
+        return stockQuantity - (reservedQuantity != null ? reservedQuantity : 0);
+    }
 }
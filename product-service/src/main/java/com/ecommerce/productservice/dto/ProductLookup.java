@@ -0,0 +1,17 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result for one requested id of a multi-get; {@code product} is null when the id is unknown
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductLookup {
+    private Long id;
+    private boolean found;
+    private ProductDTO product;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing.
+ * Pass {@code nextCursor} back as {@code after} to fetch the following page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPage {
+    private List<ProductDTO> items;
+    private Long nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields other services replicate locally: enough to price and validate an order line
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshot {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Boolean available;
+    private Integer availableToSell;
+    private Long version;
+}
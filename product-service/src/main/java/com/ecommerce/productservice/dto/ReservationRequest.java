@@ -0,0 +1,28 @@
+package com.ecommerce.productservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+    @NotNull(message = "Order id is required")
+    private Long orderId;
+    
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid StockUpdateItem> items;
+    
+    /**
+     * Hold duration; the configured default applies when omitted
+     */
+    @Min(value = 1, message = "TTL must be at least one second")
+    private Long ttlSeconds;
+}
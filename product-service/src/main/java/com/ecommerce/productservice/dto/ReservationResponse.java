@@ -0,0 +1,18 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResponse {
+    private Long orderId;
+    private boolean success;
+    private LocalDateTime expiresAt;
+    private List<StockUpdateResult> results;
+}
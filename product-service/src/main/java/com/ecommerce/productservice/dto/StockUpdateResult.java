@@ -0,0 +1,15 @@
+package com.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockUpdateResult {
+    private Long productId;
+    private Integer quantity;
+    private boolean success;
+    private String message;
+}
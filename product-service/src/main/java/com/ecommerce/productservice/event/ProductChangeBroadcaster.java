@@ -0,0 +1,64 @@
+package com.ecommerce.productservice.event;
+
+import com.ecommerce.productservice.config.RabbitMQConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Relays product changes between product-service replicas.
+ * Local changes are forwarded to the product exchange once committed; changes made
+ * by other replicas are re-published as local application events.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductChangeBroadcaster {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void broadcast(ProductChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+
+        ProductChangedEvent message = new ProductChangedEvent(
+                event.getProductId(),
+                event.getChangeType(),
+                event.getProduct(),
+                instanceId,
+                event.getTimestamp()
+        );
+        String routingKey = RabbitMQConfig.PRODUCT_ROUTING_KEY_PREFIX + event.getChangeType().name().toLowerCase();
+
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_EXCHANGE, routingKey, message);
+            log.debug("Published product change {} for product {}", event.getChangeType(), event.getProductId());
+        } catch (AmqpException e) {
+            // Other replicas fall back to cache expiry
+            log.error("Failed to publish product change for product {}: {}", event.getProductId(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{productChangesQueue.name}")
+    public void handleRemoteChange(ProductChangedEvent event) {
+        if (instanceId.equals(event.getOrigin())) {
+            return;
+        }
+
+        log.debug("Received product change {} for product {} from {}",
+                event.getChangeType(), event.getProductId(), event.getOrigin());
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.productservice.event;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    STOCK_CHANGED,
+    /**
+     * Many products changed at once (bulk import); carries no product id or snapshot
+     */
+    CATALOG_RELOADED
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.productservice.event;
+
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a product is written.
+ * Local listeners react after the surrounding transaction commits; the event is
+ * also relayed to the other product-service replicas over RabbitMQ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangedEvent implements Serializable {
+    private Long productId;
+    private ProductChangeType changeType;
+
+    /**
+     * State of the product after the change, null for deletions
+     */
+    private ProductDTO product;
+
+    /**
+     * Instance id of the replica that made the change, set when the event is relayed
+     */
+    private String origin;
+
+    private LocalDateTime timestamp;
+
+    public ProductChangedEvent(Long productId, ProductChangeType changeType, ProductDTO product) {
+        this(productId, changeType, product, null, LocalDateTime.now());
+    }
+
+    @JsonIgnore
+    public boolean isRemote() {
+        return origin != null;
+    }
+}
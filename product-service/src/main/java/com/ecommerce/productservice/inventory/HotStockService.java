@@ -0,0 +1,449 @@
+package com.ecommerce.productservice.inventory;
+
+import com.ecommerce.productservice.dto.HotStockSettlement;
+import com.ecommerce.productservice.dto.StockUpdateItem;
+import com.ecommerce.productservice.event.ProductChangeType;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import com.ecommerce.productservice.model.Product;
+import com.ecommerce.productservice.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Flash-sale inventory mode.
+ * Stock of products flagged as hot is leased from the {@code products} table in chunks
+ * into {@link StripedStockCounter}s so that decrements are answered from memory. A lease
+ * moves units into the row's reserved and {@code hot_leased} quantities before they can be
+ * sold, so the database never hands them out again; units sold are written back in
+ * batches, and unsold units are returned when a counter is retired.
+ * <p>
+ * Every lease is recorded in {@code hot_stock_leases} under the id of the instance holding
+ * it, with an expiry the holder keeps pushing out. Leases of an instance that died without
+ * shutting down cleanly are left alone until they expire and are then written off as sold
+ * by any other instance: stock can be under-counted by at most one lease per product and
+ * instance, but never oversold. An instance that finds its own lease written off, e.g.
+ * after a long pause, drops the counter and leases afresh.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotStockService {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${product.hot-stock.stripes:16}")
+    private int stripes;
+
+    @Value("${product.hot-stock.lease-size:100}")
+    private int leaseSize;
+
+    @Value("${product.hot-stock.lease-ttl:30s}")
+    private Duration leaseTtl;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    // Serializes every write of lease accounting: leasing, flushing and retiring
+    private final Object settlementLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        writeOffExpiredLeases();
+        reconcile();
+    }
+
+    /**
+     * Brings the counters in line with the hot stock flags: counters of products no
+     * longer hot are retired, and every hot product gets a fresh lease on its current row
+     */
+    public void reconcile() {
+        Set<Long> hotIds = productRepository.findByHotStockTrue().stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+        for (Long productId : new ArrayList<>(leases.keySet())) {
+            if (!hotIds.contains(productId)) {
+                Lease lease = leases.remove(productId);
+                if (lease != null && !retire(productId, lease)) {
+                    leases.putIfAbsent(productId, lease);
+                }
+            }
+        }
+        hotIds.forEach(this::renew);
+        if (!hotIds.isEmpty()) {
+            log.info("Reloaded in-memory stock counters for {} hot products", hotIds.size());
+        }
+    }
+
+    public boolean isHot(Long productId) {
+        return leases.containsKey(productId);
+    }
+
+    public boolean tryDecrement(Long productId, int quantity) {
+        Lease lease = leases.get(productId);
+        if (lease == null) {
+            throw new IllegalStateException("Product " + productId + " is not in hot stock mode");
+        }
+        if (quantity <= 0) {
+            // Negative quantities add stock, as on the database path
+            add(productId, lease, -quantity);
+            return true;
+        }
+        if (lease.counter.tryDecrement(quantity)) {
+            return true;
+        }
+        rerouteIfRetired(productId, lease);
+        return leaseAndDecrement(productId, quantity);
+    }
+
+    /**
+     * Returns units taken by a decrement that did not go through, e.g. when its batch rolled back
+     */
+    public void restore(Long productId, int quantity) {
+        Lease lease = leases.get(productId);
+        if (lease != null) {
+            add(productId, lease, quantity);
+        } else {
+            // The counter was retired and settled these units as sold
+            inTransaction(() -> {
+                productRepository.batchApplyStockDecrements(List.of(new StockUpdateItem(productId, -quantity)));
+                publishStockChanges(List.of(productId));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * @return stock currently held in memory, or null if the product is not hot
+     */
+    public Long getStock(Long productId) {
+        Lease lease = leases.get(productId);
+        return lease != null ? lease.counter.get() : null;
+    }
+
+    public void enable(Long productId) {
+        if (isHot(productId)) {
+            return;
+        }
+        if (productRepository.setHotStock(productId, true) == 0) {
+            throw new RuntimeException("Product not found with id: " + productId);
+        }
+        Lease lease = renew(productId);
+        log.info("Enabled hot stock mode for product {} with {} units", productId, lease.counter.get());
+    }
+
+    public void disable(Long productId) {
+        // Clear the flag first so that a concurrent reconcile does not lease again
+        productRepository.setHotStock(productId, false);
+        Lease lease = leases.remove(productId);
+        if (lease != null && !retire(productId, lease)) {
+            leases.putIfAbsent(productId, lease);
+            productRepository.setHotStock(productId, true);
+            throw new RuntimeException("Failed to write back hot stock for product " + productId);
+        }
+        log.info("Disabled hot stock mode for product {}", productId);
+    }
+
+    /**
+     * Writes back units sold since the previous flush and tops up counters running low
+     */
+    @Scheduled(fixedDelayString = "${product.hot-stock.flush-interval-ms:200}")
+    public void flush() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        synchronized (settlementLock) {
+            Map<Long, Lease> sold = new HashMap<>();
+            List<HotStockSettlement> settlements = new ArrayList<>();
+            leases.forEach((productId, lease) -> {
+                // Units in the lease that are no longer in the counter were sold; restores make this negative
+                long units = lease.leased - lease.counter.get();
+                if (units != 0) {
+                    sold.put(productId, lease);
+                    settlements.add(new HotStockSettlement(productId, Math.toIntExact(units), 0));
+                }
+            });
+            // A failed write leaves the units in the lease, so the next flush retries them
+            int[] held = settlements.isEmpty() ? null : settle(settlements);
+            if (held != null) {
+                for (int i = 0; i < settlements.size(); i++) {
+                    HotStockSettlement settlement = settlements.get(i);
+                    Lease lease = sold.get(settlement.getProductId());
+                    if (held[i] != 0) {
+                        lease.leased -= settlement.getSold();
+                    } else {
+                        dropWrittenOff(settlement.getProductId(), lease);
+                    }
+                }
+            }
+
+            leases.forEach((productId, lease) -> {
+                if (lease.counter.get() < leaseSize / 2) {
+                    lease(productId, lease, leaseSize);
+                }
+            });
+        }
+    }
+
+    /**
+     * Keeps this instance's leases from expiring, drops counters whose lease was written off
+     * in the meantime and writes off the expired leases of instances that are gone
+     */
+    @Scheduled(fixedDelayString = "${product.hot-stock.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        synchronized (settlementLock) {
+            if (!leases.isEmpty()) {
+                try {
+                    Set<Long> held = new HashSet<>(inTransaction(() ->
+                            productRepository.renewHotStockLeases(instanceId, LocalDateTime.now().plus(leaseTtl))));
+                    leases.forEach((productId, lease) -> {
+                        if (lease.leased != 0 && !held.contains(productId)) {
+                            dropWrittenOff(productId, lease);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    log.error("Failed to renew hot stock leases: {}", e.getMessage());
+                }
+            }
+        }
+        writeOffExpiredLeases();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Long productId : new ArrayList<>(leases.keySet())) {
+            Lease lease = leases.remove(productId);
+            if (lease != null) {
+                retire(productId, lease);
+            }
+        }
+    }
+
+    /**
+     * An admin update or import sets an absolute stock level, which the current lease was
+     * taken against: settle it and lease again from the new level
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        if (event.getChangeType() == ProductChangeType.CATALOG_RELOADED) {
+            reconcile();
+            return;
+        }
+        if (!isHot(event.getProductId())) {
+            return;
+        }
+        if (event.getChangeType() == ProductChangeType.DELETED) {
+            leases.remove(event.getProductId());
+        } else if (event.getChangeType() == ProductChangeType.UPDATED) {
+            renew(event.getProductId());
+        }
+    }
+
+    /**
+     * Swaps in an empty counter, settles the one it replaces and leases for the new one.
+     * Decrements that still reach the old counter either complete before it is drained
+     * and are settled as sold, or fail there and retry on the new one.
+     */
+    private Lease renew(Long productId) {
+        Lease fresh = new Lease(new StripedStockCounter(0, stripes));
+        Lease previous = leases.put(productId, fresh);
+        synchronized (settlementLock) {
+            if (previous != null && !retire(productId, previous)) {
+                // Carry the unsettled lease over so its units are settled by a later flush
+                fresh.leased += previous.leased;
+                fresh.counter.add(previous.counter.drain());
+            }
+            lease(productId, fresh, leaseSize);
+        }
+        return fresh;
+    }
+
+    /**
+     * Settles a lease already removed from the map: units left in the counter are
+     * returned, the rest of the lease was sold
+     * @return false if the write failed, in which case the lease is left as it was
+     */
+    private boolean retire(Long productId, Lease lease) {
+        synchronized (settlementLock) {
+            lease.retired = true;
+            long unsold = lease.counter.drain();
+            if (lease.leased == 0 && unsold == 0) {
+                return true;
+            }
+            HotStockSettlement settlement = new HotStockSettlement(productId,
+                    Math.toIntExact(lease.leased - unsold), Math.toIntExact(unsold));
+            // A lease already written off has nothing left to settle, and unsold units were counted as sold
+            if (settle(List.of(settlement)) == null) {
+                lease.counter.add(unsold);
+                lease.retired = false;
+                return false;
+            }
+            lease.leased = 0;
+            try {
+                inTransaction(() -> {
+                    productRepository.deleteHotStockLease(productId, instanceId);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // An empty lease left behind expires and is written off with nothing to write off
+                log.warn("Failed to drop hot stock lease of product {}: {}", productId, e.getMessage());
+            }
+            return true;
+        }
+    }
+
+    private boolean leaseAndDecrement(Long productId, int quantity) {
+        synchronized (settlementLock) {
+            Lease lease = leases.get(productId);
+            if (lease == null) {
+                return false;
+            }
+            if (lease.counter.tryDecrement(quantity)) {
+                return true;
+            }
+            // Once the row ran dry, only the scheduled top-up asks it again
+            if (!lease.exhausted) {
+                lease(productId, lease, Math.max(leaseSize, quantity));
+            }
+            return lease.counter.tryDecrement(quantity);
+        }
+    }
+
+    // Caller holds settlementLock
+    private void lease(Long productId, Lease lease, int units) {
+        int granted;
+        try {
+            granted = inTransaction(() -> {
+                int leased = productRepository.leaseHotStock(productId, units, instanceId,
+                        LocalDateTime.now().plus(leaseTtl));
+                if (leased > 0) {
+                    publishStockChanges(List.of(productId));
+                }
+                return leased;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to lease hot stock for product {}: {}", productId, e.getMessage());
+            return;
+        }
+        lease.leased += granted;
+        lease.counter.add(granted);
+        lease.exhausted = granted < units;
+    }
+
+    private void add(Long productId, Lease lease, int quantity) {
+        lease.counter.add(quantity);
+        rerouteIfRetired(productId, lease);
+    }
+
+    // Units that reached a counter after it was drained belong to whichever counter replaced it
+    private void rerouteIfRetired(Long productId, Lease lease) {
+        if (lease.retired) {
+            long stray = lease.counter.drain();
+            if (stray > 0) {
+                restore(productId, Math.toIntExact(stray));
+            }
+        }
+    }
+
+    /**
+     * Caller holds settlementLock
+     * @return per-settlement counts, 0 where the lease was written off; null if the write failed
+     */
+    private int[] settle(List<HotStockSettlement> settlements) {
+        try {
+            int[] held = inTransaction(() -> {
+                int[] counts = productRepository.batchSettleHotStock(instanceId, settlements);
+                publishStockChanges(settlements.stream().map(HotStockSettlement::getProductId).toList());
+                return counts;
+            });
+            log.debug("Wrote back hot stock for {} products", settlements.size());
+            return held;
+        } catch (RuntimeException e) {
+            log.error("Failed to write back hot stock: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Caller holds settlementLock. Another instance took this instance for dead and wrote the
+     * lease off as sold, so whatever is left in the counter was already counted
+     */
+    private void dropWrittenOff(Long productId, Lease lease) {
+        long unsold = lease.counter.drain();
+        lease.leased = 0;
+        lease.exhausted = false;
+        log.warn("Hot stock lease of product {} was written off, dropped {} units left in its counter",
+                productId, unsold);
+    }
+
+    private void writeOffExpiredLeases() {
+        try {
+            List<HotStockSettlement> writtenOff = inTransaction(() -> {
+                List<HotStockSettlement> expired =
+                        productRepository.writeOffExpiredHotStockLeases(instanceId, LocalDateTime.now());
+                if (!expired.isEmpty()) {
+                    publishStockChanges(expired.stream().map(HotStockSettlement::getProductId).distinct().toList());
+                }
+                return expired;
+            });
+            writtenOff.forEach(settlement -> log.warn("Wrote off {} units of an expired hot stock lease of product {} as sold",
+                    settlement.getSold(), settlement.getProductId()));
+        } catch (RuntimeException e) {
+            log.error("Failed to write off expired hot stock leases: {}", e.getMessage());
+        }
+    }
+
+    private void publishStockChanges(List<Long> productIds) {
+        productRepository.findDTOsByIdIn(productIds)
+                .forEach(product -> eventPublisher.publishEvent(new ProductChangedEvent(
+                        product.getId(), ProductChangeType.STOCK_CHANGED, product)));
+    }
+
+    // Always a transaction of its own: callers may be inside a request transaction that can still roll back
+    private <T> T inTransaction(Supplier<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction.execute(status -> work.get());
+    }
+
+    private static final class Lease {
+        private final StripedStockCounter counter;
+        // Units leased from the row and not yet written back; guarded by settlementLock
+        private long leased;
+        private boolean exhausted;
+        private volatile boolean retired;
+
+        private Lease(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.productservice.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free stock counter split across several stripes to spread CAS contention.
+ * A decrement is served from the caller's home stripe and borrows from sibling
+ * stripes when that one runs dry; units taken are handed back if the total is not
+ * enough, so the counter can never go below zero.
+ */
+public class StripedStockCounter {
+    
+    // Stripes are spaced one cache line apart to avoid false sharing
+    private static final int PADDING = 8;
+    
+    private final int stripes;
+    private final AtomicLongArray stock;
+    
+    public StripedStockCounter(long initialStock, int stripes) {
+        this.stripes = stripes;
+        this.stock = new AtomicLongArray(stripes * PADDING);
+        long share = initialStock / stripes;
+        for (int i = 0; i < stripes; i++) {
+            stock.set(i * PADDING, share);
+        }
+        stock.addAndGet(0, initialStock - share * stripes);
+    }
+    
+    public boolean tryDecrement(long quantity) {
+        int home = homeStripe();
+        long remaining = quantity;
+        long[] taken = null;
+        
+        for (int k = 0; k < stripes && remaining > 0; k++) {
+            int index = ((home + k) % stripes) * PADDING;
+            long available;
+            while ((available = stock.get(index)) > 0) {
+                long take = Math.min(available, remaining);
+                if (stock.compareAndSet(index, available, available - take)) {
+                    remaining -= take;
+                    if (remaining > 0) {
+                        if (taken == null) {
+                            taken = new long[stripes];
+                        }
+                        taken[(home + k) % stripes] += take;
+                    }
+                    break;
+                }
+            }
+        }
+        
+        if (remaining > 0) {
+            // Not enough across all stripes: give back what was borrowed
+            if (taken != null) {
+                for (int i = 0; i < stripes; i++) {
+                    if (taken[i] > 0) {
+                        stock.addAndGet(i * PADDING, taken[i]);
+                    }
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Adds units, e.g. newly leased stock or a decrement handed back after a rollback
+     */
+    public void add(long quantity) {
+        stock.addAndGet(homeStripe() * PADDING, quantity);
+    }
+    
+    /**
+     * Empties the counter. Every unit is either taken by a decrement that completed before
+     * its stripe was emptied or returned here, never both.
+     * @return the units that were left
+     */
+    public long drain() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += stock.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+    
+    public long get() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += stock.get(i * PADDING);
+        }
+        return total;
+    }
+    
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id ^ (id >>> 16)) % stripes);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.productservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a hot product leased to the in-memory counter of one product-service instance.
+ * The owner keeps pushing the expiry forward while it runs; once it lapses the units are
+ * written off as sold by whichever instance notices first.
+ * Only written by the hot stock statements in {@code ProductRepositoryImpl}.
+ */
+@Entity
+@Table(name = "hot_stock_leases", indexes = {
+        @Index(name = "idx_hot_stock_leases_expiry", columnList = "expires_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_hot_stock_leases_product_owner", columnNames = {"product_id", "owner"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockLease {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    /**
+     * Instance id of the process holding the counter, new on every start
+     */
+    @Column(nullable = false, length = 64)
+    private String owner;
+    
+    /**
+     * Units leased and not yet written back; part of the product's {@code hot_leased}
+     */
+    @Column(nullable = false)
+    private Integer units;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -40,11 +40,39 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
     
+    /**
+     * Units held by active reservations; available to sell is stock minus reserved
+     */
+    @Column(name = "reserved_quantity", nullable = false, columnDefinition = "integer default 0")
+    private Integer reservedQuantity = 0;
+    
     private String imageUrl;
     
     @Column(nullable = false)
     private Boolean available = true;
     
+    /**
+     * Stock decrements for hot (flash-sale) products are served from in-memory counters
+     */
+    @Column(name = "hot_stock", nullable = false, columnDefinition = "boolean default false")
+    private Boolean hotStock = false;
+    
+    /**
+     * Part of the reserved quantity leased to the in-memory counters of a hot product, summed
+     * over the instances in {@code hot_stock_leases}. Reported as available to sell, not as
+     * reserved. Only written by the hot stock statements, never through the entity.
+     */
+    @Column(name = "hot_leased", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer default 0")
+    private Integer hotLeased = 0;
+    
+    /**
+     * Bumped by every write, including the bulk stock updates; used for optimistic locking and ETags
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
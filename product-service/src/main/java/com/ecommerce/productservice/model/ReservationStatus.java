@@ -0,0 +1,8 @@
+package com.ecommerce.productservice.model;
+
+public enum ReservationStatus {
+    ACTIVE,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
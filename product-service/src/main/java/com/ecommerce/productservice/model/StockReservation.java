@@ -0,0 +1,71 @@
+package com.ecommerce.productservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time-limited hold on stock for one line of an order
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_expiry", columnList = "status, expires_at")
+}, uniqueConstraints = {
+        // One hold per product and order: a repeated reserve call cannot hold the stock twice
+        @UniqueConstraint(name = "uk_stock_reservations_order_product", columnNames = {"order_id", "product_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+    
+    /**
+     * True when the units were taken straight from a hot product's in-memory counter
+     * instead of being held in {@code products.reserved_quantity}
+     */
+    @Column(nullable = false)
+    private Boolean deducted = false;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = ReservationStatus.ACTIVE;
+        }
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,15 +1,102 @@
 package com.ecommerce.productservice.repository;
 
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.dto.ProductSnapshot;
 import com.ecommerce.productservice.model.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    
+    /**
+     * Rows fetched per round trip when streaming the catalog through a database cursor
+     */
+    String STREAM_FETCH_SIZE = "500";
+    
     List<Product> findByCategory(String category);
     List<Product> findByNameContainingIgnoreCase(String name);
     List<Product> findByAvailableTrue();
     List<Product> findByCategoryAndAvailableTrue(String category);
+    List<Product> findByHotStockTrue();
+    
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p WHERE p.id = :id")
+    Optional<ProductDTO> findDTOById(@Param("id") Long id);
+    
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p WHERE p.id IN :ids")
+    List<ProductDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Decrements stock only if enough is left beyond what is reserved, recomputing
+     * availability in the same statement.
+     * @return 1 if the stock was decremented, 0 if the product is missing or has insufficient stock
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, " +
+            "p.available = CASE WHEN p.stockQuantity - :quantity > 0 THEN true ELSE false END, " +
+            "p.updatedAt = :now, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.stockQuantity - p.reservedQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.hotStock = :hotStock WHERE p.id = :id")
+    int setHotStock(@Param("id") Long id, @Param("hotStock") boolean hotStock);
+    
+    // Keyset pagination: rows after the given id, in id order
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    List<Product> findByCategoryAndIdGreaterThanOrderByIdAsc(String category, Long id, Limit limit);
+    List<Product> findByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    // Forward-only cursors projecting straight into DTOs, so nothing accumulates in the persistence context
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p ORDER BY p.id")
+    Stream<ProductDTO> streamAll();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p " +
+            "WHERE p.updatedAt >= :since ORDER BY p.id")
+    Stream<ProductDTO> streamUpdatedSince(@Param("since") LocalDateTime since);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p.id FROM Product p")
+    Stream<Long> streamIds();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductSnapshot(p.id, p.name, p.price, p.available, " +
+            "p.stockQuantity - p.reservedQuantity + p.hotLeased, p.version) FROM Product p ORDER BY p.id")
+    Stream<ProductSnapshot> streamSnapshots();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p " +
+            "WHERE p.category = :category ORDER BY p.id")
+    Stream<ProductDTO> streamByCategory(@Param("category") String category);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.productservice.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+            "p.category, p.stockQuantity, p.imageUrl, p.available, p.reservedQuantity - p.hotLeased, p.version) FROM Product p " +
+            "WHERE p.available = true ORDER BY p.id")
+    Stream<ProductDTO> streamAvailable();
 }
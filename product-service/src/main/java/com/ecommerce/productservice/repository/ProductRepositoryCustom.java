@@ -0,0 +1,84 @@
+package com.ecommerce.productservice.repository;
+
+import com.ecommerce.productservice.dto.HotStockSettlement;
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.dto.StockUpdateItem;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+    
+    /**
+     * Applies conditional stock decrements as one JDBC batch, in the order given.
+     * @return per-item update counts: 1 if decremented, 0 if missing or insufficient stock
+     */
+    int[] batchDecrementStock(List<StockUpdateItem> items);
+    
+    /**
+     * Applies stock decrements unconditionally as one JDBC batch. Used to write back
+     * quantities that were already checked elsewhere; negative quantities add stock.
+     */
+    int[] batchApplyStockDecrements(List<StockUpdateItem> items);
+    
+    /**
+     * Holds stock for reservations, only where enough unreserved stock is left.
+     * @return per-item update counts: 1 if held, 0 if missing or insufficient stock
+     */
+    int[] batchReserveStock(List<StockUpdateItem> items);
+    
+    /**
+     * Turns held units into sold units: decrements both stock and reserved quantity
+     */
+    int[] batchCommitReservedStock(List<StockUpdateItem> items);
+    
+    /**
+     * Returns held units to available-to-sell
+     */
+    int[] batchReleaseReservedStock(List<StockUpdateItem> items);
+    
+    /**
+     * Leases up to {@code maxUnits} of unreserved stock to the hot stock counter of a product,
+     * moving them into its reserved and leased quantities and into the owner's lease, whose
+     * expiry is pushed out to {@code expiresAt}. Locks the product row.
+     * @return units leased, 0 if none are left or the product does not exist
+     */
+    int leaseHotStock(Long productId, int maxUnits, String owner, LocalDateTime expiresAt);
+    
+    /**
+     * Writes back sold and returned units of the owner's hot stock leases as one JDBC batch
+     * @return per-settlement update counts: 0 if the lease is no longer held, in which case
+     * it was written off and the product row is left untouched
+     */
+    int[] batchSettleHotStock(String owner, List<HotStockSettlement> settlements);
+    
+    /**
+     * Drops the owner's lease of a product once its units have been settled
+     */
+    void deleteHotStockLease(Long productId, String owner);
+    
+    /**
+     * Pushes out the expiry of every lease the owner holds
+     * @return ids of the products the owner still holds a lease on
+     */
+    List<Long> renewHotStockLeases(String owner, LocalDateTime expiresAt);
+    
+    /**
+     * Writes off the units of other owners' leases that expired before {@code now} as sold
+     * and drops the leases
+     * @return the leases written off
+     */
+    List<HotStockSettlement> writeOffExpiredHotStockLeases(String owner, LocalDateTime now);
+    
+    /**
+     * Inserts new products as one JDBC batch; ids are assigned by the database
+     */
+    int[] batchInsertProducts(List<ProductDTO> products);
+    
+    /**
+     * Overwrites the catalog fields of existing products as one JDBC batch.
+     * Reserved quantities and hot stock flags are left untouched.
+     * @return per-product update counts: 0 if the id does not exist
+     */
+    int[] batchUpdateProducts(List<ProductDTO> products);
+}
@@ -0,0 +1,278 @@
+package com.ecommerce.productservice.repository;
+
+import com.ecommerce.productservice.dto.HotStockSettlement;
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.dto.StockUpdateItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC-level operations that Spring Data derived queries cannot express efficiently.
+ * Runs on the connection bound to the current JPA transaction.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, " +
+            "available = (stock_quantity - ? > 0), updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND stock_quantity - reserved_quantity >= ?";
+    
+    private static final String APPLY_STOCK_DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, " +
+            "available = (stock_quantity - ? > 0), updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private static final String RESERVE_STOCK_SQL =
+            "UPDATE products SET reserved_quantity = reserved_quantity + ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND stock_quantity - reserved_quantity >= ?";
+    
+    private static final String COMMIT_RESERVED_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, " +
+            "reserved_quantity = reserved_quantity - ?, " +
+            "available = (stock_quantity - ? > 0), updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private static final String RELEASE_RESERVED_STOCK_SQL =
+            "UPDATE products SET reserved_quantity = GREATEST(reserved_quantity - ?, 0), " +
+            "updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private static final String LOCK_UNRESERVED_STOCK_SQL =
+            "SELECT stock_quantity - reserved_quantity FROM products WHERE id = ? FOR UPDATE";
+    
+    private static final String LEASE_HOT_STOCK_SQL =
+            "UPDATE products SET reserved_quantity = reserved_quantity + ?, hot_leased = hot_leased + ?, " +
+            "updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private static final String SETTLE_HOT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = GREATEST(stock_quantity - ?, 0), " +
+            "reserved_quantity = GREATEST(reserved_quantity - ?, 0), hot_leased = GREATEST(hot_leased - ?, 0), " +
+            "available = (stock_quantity - ? > 0), updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private static final String EXTEND_HOT_STOCK_LEASE_SQL =
+            "UPDATE hot_stock_leases SET units = units + ?, expires_at = ? WHERE product_id = ? AND owner = ?";
+    
+    private static final String INSERT_HOT_STOCK_LEASE_SQL =
+            "INSERT INTO hot_stock_leases (product_id, owner, units, expires_at) VALUES (?, ?, ?, ?)";
+    
+    private static final String SETTLE_HOT_STOCK_LEASE_SQL =
+            "UPDATE hot_stock_leases SET units = units - ? WHERE product_id = ? AND owner = ?";
+    
+    private static final String DELETE_HOT_STOCK_LEASE_SQL =
+            "DELETE FROM hot_stock_leases WHERE product_id = ? AND owner = ?";
+    
+    private static final String RENEW_HOT_STOCK_LEASES_SQL =
+            "UPDATE hot_stock_leases SET expires_at = ? WHERE owner = ?";
+    
+    private static final String FIND_HOT_STOCK_LEASES_SQL =
+            "SELECT product_id FROM hot_stock_leases WHERE owner = ?";
+    
+    private static final String LOCK_EXPIRED_HOT_STOCK_LEASES_SQL =
+            "SELECT id, product_id, units FROM hot_stock_leases WHERE expires_at < ? AND owner <> ? " +
+            "ORDER BY product_id FOR UPDATE";
+    
+    private static final String DELETE_HOT_STOCK_LEASE_BY_ID_SQL =
+            "DELETE FROM hot_stock_leases WHERE id = ?";
+    
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (name, description, price, category, stock_quantity, image_url, available, " +
+            "reserved_quantity, hot_stock, hot_leased, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0, false, 0, 0, ?, ?)";
+    
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, category = ?, stock_quantity = ?, " +
+            "image_url = ?, available = ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public int[] batchDecrementStock(List<StockUpdateItem> items) {
+        return batchUpdateStock(DECREMENT_STOCK_SQL, items, true);
+    }
+    
+    @Override
+    public int[] batchApplyStockDecrements(List<StockUpdateItem> items) {
+        return batchUpdateStock(APPLY_STOCK_DECREMENT_SQL, items, false);
+    }
+    
+    @Override
+    public int[] batchReserveStock(List<StockUpdateItem> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(RESERVE_STOCK_SQL, items, (ps, item) -> {
+            ps.setInt(1, item.getQuantity());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, item.getProductId());
+            ps.setInt(4, item.getQuantity());
+        });
+    }
+    
+    @Override
+    public int[] batchCommitReservedStock(List<StockUpdateItem> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(COMMIT_RESERVED_STOCK_SQL, items, (ps, item) -> {
+            ps.setInt(1, item.getQuantity());
+            ps.setInt(2, item.getQuantity());
+            ps.setInt(3, item.getQuantity());
+            ps.setTimestamp(4, now);
+            ps.setLong(5, item.getProductId());
+        });
+    }
+    
+    @Override
+    public int[] batchReleaseReservedStock(List<StockUpdateItem> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(RELEASE_RESERVED_STOCK_SQL, items, (ps, item) -> {
+            ps.setInt(1, item.getQuantity());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, item.getProductId());
+        });
+    }
+    
+    @Override
+    public int leaseHotStock(Long productId, int maxUnits, String owner, LocalDateTime expiresAt) {
+        List<Integer> unreserved = jdbcTemplate.queryForList(LOCK_UNRESERVED_STOCK_SQL, Integer.class, productId);
+        if (unreserved.isEmpty() || unreserved.get(0) <= 0) {
+            return 0;
+        }
+        int units = Math.min(maxUnits, unreserved.get(0));
+        jdbcTemplate.update(LEASE_HOT_STOCK_SQL, units, units, Timestamp.valueOf(LocalDateTime.now()), productId);
+        // The product row lock taken above keeps a concurrent lease by the same owner from inserting twice
+        Timestamp expiry = Timestamp.valueOf(expiresAt);
+        if (jdbcTemplate.update(EXTEND_HOT_STOCK_LEASE_SQL, units, expiry, productId, owner) == 0) {
+            jdbcTemplate.update(INSERT_HOT_STOCK_LEASE_SQL, productId, owner, units, expiry);
+        }
+        return units;
+    }
+    
+    @Override
+    public int[] batchSettleHotStock(String owner, List<HotStockSettlement> settlements) {
+        int[] held = batchUpdate(SETTLE_HOT_STOCK_LEASE_SQL, settlements, (ps, settlement) -> {
+            ps.setInt(1, settlement.getSold() + settlement.getReturned());
+            ps.setLong(2, settlement.getProductId());
+            ps.setString(3, owner);
+        });
+        // A lease that was written off already took its units out of the product row
+        List<HotStockSettlement> stillHeld = new ArrayList<>();
+        for (int i = 0; i < settlements.size(); i++) {
+            if (held[i] != 0) {
+                stillHeld.add(settlements.get(i));
+            }
+        }
+        applyHotStockSettlements(stillHeld);
+        return held;
+    }
+    
+    @Override
+    public void deleteHotStockLease(Long productId, String owner) {
+        jdbcTemplate.update(DELETE_HOT_STOCK_LEASE_SQL, productId, owner);
+    }
+    
+    @Override
+    public List<Long> renewHotStockLeases(String owner, LocalDateTime expiresAt) {
+        jdbcTemplate.update(RENEW_HOT_STOCK_LEASES_SQL, Timestamp.valueOf(expiresAt), owner);
+        return jdbcTemplate.queryForList(FIND_HOT_STOCK_LEASES_SQL, Long.class, owner);
+    }
+    
+    @Override
+    public List<HotStockSettlement> writeOffExpiredHotStockLeases(String owner, LocalDateTime now) {
+        List<Map<String, Object>> expired = jdbcTemplate.queryForList(LOCK_EXPIRED_HOT_STOCK_LEASES_SQL,
+                Timestamp.valueOf(now), owner);
+        List<HotStockSettlement> writtenOff = new ArrayList<>();
+        for (Map<String, Object> lease : expired) {
+            // Another instance may have written the lease off while this one waited for the lock
+            if (jdbcTemplate.update(DELETE_HOT_STOCK_LEASE_BY_ID_SQL, ((Number) lease.get("id")).longValue()) == 1) {
+                writtenOff.add(new HotStockSettlement(((Number) lease.get("product_id")).longValue(),
+                        ((Number) lease.get("units")).intValue(), 0));
+            }
+        }
+        applyHotStockSettlements(writtenOff);
+        return writtenOff;
+    }
+    
+    @Override
+    public int[] batchInsertProducts(List<ProductDTO> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(INSERT_PRODUCT_SQL, products, (ps, product) -> {
+            setCatalogFields(ps, product);
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+    }
+    
+    @Override
+    public int[] batchUpdateProducts(List<ProductDTO> products) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(UPDATE_PRODUCT_SQL, products, (ps, product) -> {
+            setCatalogFields(ps, product);
+            ps.setTimestamp(8, now);
+            ps.setLong(9, product.getId());
+        });
+    }
+    
+    private void applyHotStockSettlements(List<HotStockSettlement> settlements) {
+        if (settlements.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        batchUpdate(SETTLE_HOT_STOCK_SQL, settlements, (ps, settlement) -> {
+            int released = settlement.getSold() + settlement.getReturned();
+            ps.setInt(1, settlement.getSold());
+            ps.setInt(2, released);
+            ps.setInt(3, released);
+            ps.setInt(4, settlement.getSold());
+            ps.setTimestamp(5, now);
+            ps.setLong(6, settlement.getProductId());
+        });
+    }
+    
+    private static void setCatalogFields(PreparedStatement ps, ProductDTO product) throws SQLException {
+        ps.setString(1, product.getName());
+        ps.setString(2, product.getDescription());
+        ps.setBigDecimal(3, product.getPrice());
+        ps.setString(4, product.getCategory());
+        ps.setInt(5, product.getStockQuantity());
+        ps.setString(6, product.getImageUrl());
+        ps.setBoolean(7, product.getAvailable() == null || product.getAvailable());
+    }
+    
+    private int[] batchUpdateStock(String sql, List<StockUpdateItem> items, boolean conditional) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return batchUpdate(sql, items, (ps, item) -> {
+            ps.setInt(1, item.getQuantity());
+            ps.setInt(2, item.getQuantity());
+            ps.setTimestamp(3, now);
+            ps.setLong(4, item.getProductId());
+            if (conditional) {
+                ps.setInt(5, item.getQuantity());
+            }
+        });
+    }
+    
+    private <T> int[] batchUpdate(String sql, List<T> items, ParameterizedPreparedStatementSetter<T> setter) {
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, items.get(i));
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+}
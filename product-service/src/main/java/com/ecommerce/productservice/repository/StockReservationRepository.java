@@ -0,0 +1,37 @@
+package com.ecommerce.productservice.repository;
+
+import com.ecommerce.productservice.model.ReservationStatus;
+import com.ecommerce.productservice.model.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    List<StockReservation> findByOrderId(Long orderId);
+    
+    List<StockReservation> findByStatus(ReservationStatus status);
+    
+    List<StockReservation> findByStatusAndExpiresAtBefore(ReservationStatus status, LocalDateTime time, Limit limit);
+    
+    List<StockReservation> findByIdInAndStatus(Collection<Long> ids, ReservationStatus status);
+    
+    /**
+     * Compare-and-set on the reservation status, so each hold is committed, released or expired exactly once
+     * @return 1 if this caller made the transition
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to, r.updatedAt = :now WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to,
+                   @Param("now") LocalDateTime now);
+}
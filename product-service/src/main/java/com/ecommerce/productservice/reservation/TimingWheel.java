@@ -0,0 +1,137 @@
+package com.ecommerce.productservice.reservation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel for expiring reservations.
+ * Each tick only looks at one bucket, so the cost of expiry is proportional to the
+ * number of timers in that slot rather than to the number of outstanding holds.
+ * Timers further away than one revolution stay in their bucket and are re-checked
+ * once per revolution. Cancelled timers are dropped when their bucket next comes round;
+ * holds can also end on another replica, so the expiry callback is still expected to
+ * ignore ids that are no longer active.
+ */
+@Slf4j
+public class TimingWheel {
+    
+    private final long tickMillis;
+    private final List<Queue<Timer>> buckets;
+    private final Consumer<List<Long>> onExpired;
+    private final Map<Long, Timer> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private final LongSupplier clock;
+    private final long startMillis;
+    
+    private volatile long currentTick;
+    
+    public TimingWheel(long tickMillis, int wheelSize, Consumer<List<Long>> onExpired) {
+        this(tickMillis, wheelSize, onExpired, System::currentTimeMillis);
+    }
+    
+    // Tests pass a clock of their own and call advance() directly
+    TimingWheel(long tickMillis, int wheelSize, Consumer<List<Long>> onExpired, LongSupplier clock) {
+        this.tickMillis = tickMillis;
+        this.onExpired = onExpired;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.clock = clock;
+        this.startMillis = clock.getAsLong();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void start() {
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void stop() {
+        ticker.shutdownNow();
+    }
+    
+    /**
+     * Schedules a timer, replacing any earlier one with the same id
+     */
+    public void schedule(long id, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis - startMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timer timer = new Timer(id, deadlineMillis);
+        Timer previous = timers.put(id, timer);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        bucketFor(tick).add(timer);
+    }
+    
+    public void cancel(long id) {
+        Timer timer = timers.remove(id);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+    
+    void advance() {
+        try {
+            long now = clock.getAsLong();
+            long targetTick = (now - startMillis) / tickMillis;
+            List<Long> expired = new ArrayList<>();
+            
+            while (currentTick <= targetTick) {
+                Queue<Timer> bucket = bucketFor(currentTick);
+                for (int pending = bucket.size(); pending > 0; pending--) {
+                    Timer timer = bucket.poll();
+                    if (timer == null) {
+                        break;
+                    }
+                    if (timer.cancelled) {
+                        continue;
+                    }
+                    if (timer.deadlineMillis <= now) {
+                        timers.remove(timer.id, timer);
+                        expired.add(timer.id);
+                    } else {
+                        // Due in a later revolution
+                        bucket.add(timer);
+                    }
+                }
+                currentTick++;
+            }
+            
+            if (!expired.isEmpty()) {
+                onExpired.accept(expired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Timing wheel tick failed: {}", e.getMessage(), e);
+        }
+    }
+    
+    private Queue<Timer> bucketFor(long tick) {
+        return buckets.get((int) (tick % buckets.size()));
+    }
+    
+    private static final class Timer {
+        private final long id;
+        private final long deadlineMillis;
+        private volatile boolean cancelled;
+        
+        private Timer(long id, long deadlineMillis) {
+            this.id = id;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.ecommerce.productservice.search;
+
+import com.ecommerce.productservice.catalog.CatalogProjection;
+import com.ecommerce.productservice.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index over product name, description and category.
+ * Query tokens are matched against the indexed vocabulary exactly, by prefix/substring
+ * and, for typo tolerance, by trigram similarity or a small edit distance. Candidate terms
+ * come from the trigram index, so no full vocabulary scan is needed. Documents are ranked
+ * by the number of query tokens they match, then by a field-weighted score.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements CatalogProjection {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.9;
+    private static final double SUBSTRING_MATCH = 0.7;
+    private static final double FUZZY_MATCH = 0.6;
+
+    @Value("${product.search.fuzzy-threshold:0.4}")
+    private double fuzzyThreshold;
+
+    // term -> (product id -> field weight)
+    private final Map<String, Term> vocabulary = new ConcurrentHashMap<>();
+    // trigram -> terms containing it
+    private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+    // product id -> indexed terms, used to unindex on update/delete
+    private final Map<Long, Map<String, Integer>> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+        log.info("Product search index built: {} products, {} terms", documents.size(), vocabulary.size());
+    }
+
+    @Override
+    public synchronized void reset() {
+        ready = false;
+        vocabulary.clear();
+        trigrams.clear();
+        documents.clear();
+    }
+
+    @Override
+    public synchronized void upsert(ProductDTO product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getCategory(), CATEGORY_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        Map<String, Integer> previous = documents.put(product.getId(), terms);
+        if (previous != null) {
+            previous.keySet().forEach(term -> unlink(term, product.getId()));
+        }
+        terms.forEach((term, weight) -> vocabulary
+                .computeIfAbsent(term, this::newTerm)
+                .postings.put(product.getId(), weight));
+    }
+
+    @Override
+    public synchronized void remove(Long productId) {
+        Map<String, Integer> previous = documents.remove(productId);
+        if (previous != null) {
+            previous.keySet().forEach(term -> unlink(term, productId));
+        }
+    }
+
+    /**
+     * @return ids of matching products, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, DocumentScore> scores = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<Long, Double> tokenScores = scoreToken(tokens.get(i));
+            int tokenIndex = i;
+            tokenScores.forEach((productId, score) -> scores
+                    .computeIfAbsent(productId, id -> new DocumentScore())
+                    .add(tokenIndex, score));
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Comparator
+                        .comparingInt((Map.Entry<Long, DocumentScore> e) -> e.getValue().matchedTokens.cardinality())
+                        .reversed()
+                        .thenComparing(e -> e.getValue().score, Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Best score per product for one query token across all vocabulary terms it matches
+     */
+    private Map<Long, Double> scoreToken(String token) {
+        Map<Long, Double> best = new HashMap<>();
+
+        Term exact = vocabulary.get(token);
+        if (exact != null) {
+            collect(best, exact, EXACT_MATCH);
+        }
+
+        Set<String> queryGrams = trigramsOf(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> terms = trigrams.get(gram);
+            if (terms != null) {
+                terms.forEach(term -> shared.merge(term, 1, Integer::sum));
+            }
+        }
+
+        shared.forEach((candidate, common) -> {
+            if (candidate.equals(token)) {
+                return;
+            }
+            Term term = vocabulary.get(candidate);
+            if (term == null) {
+                return;
+            }
+
+            double factor;
+            if (candidate.startsWith(token)) {
+                factor = PREFIX_MATCH;
+            } else if (candidate.contains(token)) {
+                factor = SUBSTRING_MATCH;
+            } else {
+                double similarity = (double) common / (queryGrams.size() + term.trigramCount - common);
+                int maxEdits = token.length() <= 4 ? 1 : 2;
+                int edits = editDistance(token, candidate, maxEdits);
+                if (edits <= maxEdits) {
+                    similarity = Math.max(similarity, 1.0 - (double) edits / Math.max(token.length(), candidate.length()));
+                } else if (similarity < fuzzyThreshold) {
+                    return;
+                }
+                factor = FUZZY_MATCH * similarity;
+            }
+            collect(best, term, factor);
+        });
+
+        return best;
+    }
+
+    private void collect(Map<Long, Double> best, Term term, double factor) {
+        term.postings.forEach((productId, weight) -> best.merge(productId, weight * factor, Math::max));
+    }
+
+    private Term newTerm(String term) {
+        Set<String> grams = trigramsOf(term);
+        grams.forEach(gram -> trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term));
+        return new Term(grams.size());
+    }
+
+    private void unlink(String term, Long productId) {
+        Term entry = vocabulary.get(term);
+        if (entry == null) {
+            return;
+        }
+        entry.postings.remove(productId);
+        if (entry.postings.isEmpty()) {
+            vocabulary.remove(term);
+            for (String gram : trigramsOf(term)) {
+                Set<String> terms = trigrams.get(gram);
+                if (terms != null) {
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Optimal string alignment distance (adjacent transpositions count as one edit),
+     * returning {@code max + 1} as soon as the distance is known to exceed {@code max}
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    static Set<String> trigramsOf(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        if (grams.isEmpty()) {
+            grams.add(padded);
+        }
+        return grams;
+    }
+
+    private static final class Term {
+        private final Map<Long, Integer> postings = new ConcurrentHashMap<>();
+        private final int trigramCount;
+
+        private Term(int trigramCount) {
+            this.trigramCount = trigramCount;
+        }
+    }
+
+    private static final class DocumentScore {
+        private final BitSet matchedTokens = new BitSet();
+        private double score;
+
+        private void add(int tokenIndex, double tokenScore) {
+            matchedTokens.set(tokenIndex);
+            score += tokenScore;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.ecommerce.productservice.service;
+
+import com.ecommerce.productservice.dto.ImportError;
+import com.ecommerce.productservice.dto.ImportReport;
+import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.event.ProductChangeType;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import com.ecommerce.productservice.inventory.HotStockService;
+import com.ecommerce.productservice.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of products from NDJSON or CSV.
+ * Rows are parsed and validated as they are read and written with plain JDBC batches,
+ * one transaction per batch, so memory stays bounded and a bad row only costs its own
+ * line. Rows with an id overwrite that product, rows without one are inserted.
+ * <p>
+ * Hibernate disables insert batching for IDENTITY ids, but JDBC batches do not go through
+ * Hibernate, and with {@code reWriteBatchedInserts=true} the PostgreSQL driver sends each
+ * batch as multi-row INSERT statements, so the id strategy does not need to change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("100000000");
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final HotStockService hotStockService;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ImportReport importProducts(InputStream body, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        List<Row> batch = new ArrayList<>(batchSize);
+        // Rows may set absolute stock levels: hot stock sold so far must land before them
+        hotStockService.flush();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvColumns = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && csvColumns == null) {
+                    csvColumns = parseHeader(line);
+                    continue;
+                }
+
+                report.setReceived(report.getReceived() + 1);
+                try {
+                    ProductDTO product = format == Format.CSV ? parseCsv(line, csvColumns) : parseJson(line);
+                    validate(product);
+                    batch.add(new Row(lineNumber, product));
+                } catch (IllegalArgumentException e) {
+                    fail(report, lineNumber, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, report);
+        }
+
+        if (report.getInserted() + report.getUpdated() > 0) {
+            eventPublisher.publishEvent(new ProductChangedEvent(null, ProductChangeType.CATALOG_RELOADED, null));
+        }
+        report.setDurationMs(System.currentTimeMillis() - start);
+        log.info("Imported products: {} received, {} inserted, {} updated, {} failed in {} ms",
+                report.getReceived(), report.getInserted(), report.getUpdated(), report.getFailed(),
+                report.getDurationMs());
+        return report;
+    }
+
+    private void writeBatch(List<Row> batch, ImportReport report) {
+        try {
+            write(batch, report);
+        } catch (DataAccessException e) {
+            // Find the offending rows by retrying one at a time
+            log.warn("Import batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (Row row : batch) {
+                try {
+                    write(List.of(row), report);
+                } catch (DataAccessException rowError) {
+                    fail(report, row.line, "Database error: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void write(List<Row> rows, ImportReport report) {
+        List<Row> inserts = rows.stream().filter(row -> row.product.getId() == null).collect(Collectors.toList());
+        List<Row> updates = rows.stream().filter(row -> row.product.getId() != null).collect(Collectors.toList());
+
+        int[] updateCounts = new TransactionTemplate(transactionManager).execute(status -> {
+            if (!inserts.isEmpty()) {
+                productRepository.batchInsertProducts(products(inserts));
+            }
+            return updates.isEmpty() ? new int[0] : productRepository.batchUpdateProducts(products(updates));
+        });
+
+        report.setInserted(report.getInserted() + inserts.size());
+        for (int i = 0; i < updates.size(); i++) {
+            if (updateCounts[i] == 0) {
+                fail(report, updates.get(i).line, "Product not found with id: " + updates.get(i).product.getId());
+            } else {
+                report.setUpdated(report.getUpdated() + 1);
+            }
+        }
+    }
+
+    private void fail(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ImportError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private ProductDTO parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ProductDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(normalize(names.get(i)), i);
+        }
+        return columns;
+    }
+
+    private static ProductDTO parseCsv(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        ProductDTO product = new ProductDTO();
+        try {
+            String id = column(values, columns, "id");
+            product.setId(id != null ? Long.valueOf(id) : null);
+            product.setName(column(values, columns, "name"));
+            product.setDescription(column(values, columns, "description"));
+            String price = column(values, columns, "price");
+            product.setPrice(price != null ? new BigDecimal(price) : null);
+            product.setCategory(column(values, columns, "category"));
+            String stock = column(values, columns, "stockquantity");
+            product.setStockQuantity(stock != null ? Integer.valueOf(stock) : null);
+            product.setImageUrl(column(values, columns, "imageurl"));
+            String available = column(values, columns, "available");
+            product.setAvailable(available != null ? Boolean.valueOf(available) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+        return product;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one CSV record; fields may be double-quoted, with {@code ""} for a literal quote.
+     * Quoted fields cannot span lines.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String normalize(String header) {
+        return header.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private void validate(ProductDTO product) {
+        List<String> problems = validator.validate(product).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+        if (product.getStockQuantity() == null) {
+            problems.add("Stock quantity is required");
+        }
+        if (tooLong(product.getName(), MAX_NAME_LENGTH) || tooLong(product.getCategory(), MAX_NAME_LENGTH)
+                || tooLong(product.getImageUrl(), MAX_NAME_LENGTH)) {
+            problems.add("Name, category and image URL are limited to " + MAX_NAME_LENGTH + " characters");
+        }
+        if (tooLong(product.getDescription(), MAX_DESCRIPTION_LENGTH)) {
+            problems.add("Description is limited to " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        if (product.getPrice() != null && (product.getPrice().stripTrailingZeros().scale() > 2 || product.getPrice().compareTo(MAX_PRICE) >= 0)) {
+            problems.add("Price must have at most 2 decimals and be below " + MAX_PRICE);
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", problems));
+        }
+    }
+
+    private static boolean tooLong(String value, int max) {
+        return value != null && value.length() > max;
+    }
+
+    private static List<ProductDTO> products(List<Row> rows) {
+        return rows.stream().map(row -> row.product).collect(Collectors.toList());
+    }
+
+    private record Row(long line, ProductDTO product) {
+    }
+}
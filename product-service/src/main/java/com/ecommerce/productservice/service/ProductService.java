@@ -1,14 +1,62 @@
 package com.ecommerce.productservice.service;
 
+import com.ecommerce.productservice.cache.CacheFillGuard;
+import com.ecommerce.productservice.cache.SingleFlight;
+import com.ecommerce.productservice.cache.Tagged;
+import com.ecommerce.productservice.catalog.CatalogSort;
+import com.ecommerce.productservice.catalog.CatalogVersions;
+import com.ecommerce.productservice.catalog.CategoryFacetIndex;
+import com.ecommerce.productservice.catalog.ColumnarCatalog;
+import com.ecommerce.productservice.config.CacheConfig;
+import com.ecommerce.productservice.datasource.ReadWriteRoutingDataSource;
+import com.ecommerce.productservice.dto.BatchStockUpdateResponse;
+import com.ecommerce.productservice.dto.CatalogFacets;
+import com.ecommerce.productservice.dto.FilteredProducts;
+import com.ecommerce.productservice.dto.ProductBatchResponse;
 import com.ecommerce.productservice.dto.ProductDTO;
+import com.ecommerce.productservice.dto.ProductLookup;
+import com.ecommerce.productservice.dto.ProductPage;
+import com.ecommerce.productservice.dto.ProductSnapshot;
+import com.ecommerce.productservice.dto.StockUpdateItem;
+import com.ecommerce.productservice.dto.StockUpdateResult;
+import com.ecommerce.productservice.event.ProductChangeType;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import com.ecommerce.productservice.inventory.HotStockService;
 import com.ecommerce.productservice.model.Product;
 import com.ecommerce.productservice.repository.ProductRepository;
+import com.ecommerce.productservice.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -16,44 +64,240 @@ import java.util.stream.Collectors;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final CategoryFacetIndex facetIndex;
+    private final ColumnarCatalog columnarCatalog;
+    private final CatalogVersions catalogVersions;
+    private final HotStockService hotStockService;
+    private final CacheManager cacheManager;
+    private final SingleFlight singleFlight;
+    private final CacheFillGuard fillGuard;
+    private final ReadWriteRoutingDataSource routingDataSource;
     
-    public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    @Value("${product.page.max-size:500}")
+    private int maxPageSize;
+    
+    @Value("${product.search.max-results:100}")
+    private int maxSearchResults;
+    
+    // Cache-miss loads are coalesced per key and may be served by a replica; callers waiting
+    // on another caller's load hold no connection because connections are only borrowed when
+    // the first statement runs
+    @Transactional(readOnly = true)
+    public Tagged<List<ProductDTO>> getAllProducts() {
+        return readThroughList(CacheConfig.ALL_PRODUCTS_KEY, "allProducts",
+                () -> productRepository.findAll().stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()));
+    }
+    
+    // Answered from memory; must not open a transaction or borrow a connection
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getProductETag(Long id) {
+        return catalogVersions.productETag(id);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getCatalogETag() {
+        return catalogVersions.catalogETag();
+    }
+    
+    @Transactional(readOnly = true)
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return convertToDTO(product);
+        return readThrough(CacheConfig.PRODUCTS_CACHE, id, "productById", () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            return convertToDTO(product);
+        }, UnaryOperator.identity());
     }
     
-    public List<ProductDTO> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Looks the ids up in the product cache first and loads all misses with one query.
+     * Results follow the request order, duplicates included, and unknown ids are reported as misses.
+     * Reads from the primary: it fills the product cache and validates carts against current stock.
+     */
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        Map<Long, ProductDTO> productsById = new HashMap<>();
+        Set<Long> uncached = new LinkedHashSet<>();
+        for (Long id : ids) {
+            ProductDTO cached = cache != null ? cache.get(id, ProductDTO.class) : null;
+            if (cached != null) {
+                productsById.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            long loadStart = fillGuard.begin();
+            for (Product product : productRepository.findAllById(uncached)) {
+                ProductDTO dto = convertToDTO(product);
+                productsById.put(dto.getId(), dto);
+                if (cache != null) {
+                    fillGuard.put(cache, dto.getId(), dto, loadStart);
+                }
+            }
+        }
+        
+        List<ProductLookup> items = new ArrayList<>(ids.size());
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            ProductDTO product = productsById.get(id);
+            if (product == null) {
+                missingIds.add(id);
+            }
+            items.add(new ProductLookup(id, product != null, product));
+        }
+        return new ProductBatchResponse(items, new ArrayList<>(missingIds));
+    }
+    
+    @Transactional(readOnly = true)
+    public Tagged<List<ProductDTO>> getProductsByCategory(String category) {
+        return readThroughList(CacheConfig.CATEGORY_KEY_PREFIX + category, "productsByCategory",
+                () -> productRepository.findByCategory(category).stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()));
     }
     
+    @Transactional(readOnly = true)
     public List<ProductDTO> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword).stream()
+        if (!searchIndex.isReady()) {
+            // Index is still being built at startup
+            return productRepository.findByNameContainingIgnoreCase(keyword).stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        }
+        
+        List<Long> rankedIds = searchIndex.search(keyword, maxSearchResults);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, ProductDTO> productsById = productRepository.findAllById(rankedIds).stream()
                 .map(this::convertToDTO)
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
-    public List<ProductDTO> getAvailableProducts() {
-        return productRepository.findByAvailableTrue().stream()
-                .map(this::convertToDTO)
+    @Transactional(readOnly = true)
+    public CatalogFacets getCatalogFacets() {
+        if (facetIndex.isReady()) {
+            return facetIndex.getFacets();
+        }
+        // Facets are still being built at startup
+        try (Stream<ProductDTO> products = productRepository.streamAll()) {
+            return facetIndex.aggregate(products);
+        }
+    }
+    
+    /**
+     * Filter and sort over the columnar snapshot; only the requested page is loaded from the database
+     */
+    @Transactional(readOnly = true)
+    public FilteredProducts filterProducts(String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                           boolean availableOnly, CatalogSort sort, int offset, int size) {
+        int pageSize = clampPageSize(size);
+        int start = Math.max(offset, 0);
+        ColumnarCatalog.Slice slice;
+        if (columnarCatalog.isReady()) {
+            slice = columnarCatalog.query(category, minPrice, maxPrice, availableOnly, sort, start, pageSize);
+        } else {
+            // Snapshot is still being built at startup
+            try (Stream<ProductDTO> products = productRepository.streamAll()) {
+                slice = columnarCatalog.query(products, category, minPrice, maxPrice, availableOnly, sort, start, pageSize);
+            }
+        }
+        
+        List<Long> pageIds = Arrays.stream(slice.ids()).boxed().collect(Collectors.toList());
+        Map<Long, ProductDTO> productsById = productRepository.findDTOsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<ProductDTO> items = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new FilteredProducts(items, slice.total(), start);
+    }
+    
+    @Transactional(readOnly = true)
+    public Tagged<List<ProductDTO>> getAvailableProducts() {
+        return readThroughList(CacheConfig.AVAILABLE_PRODUCTS_KEY, "availableProducts",
+                () -> productRepository.findByAvailableTrue().stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()));
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(Long after, int size) {
+        int pageSize = clampPageSize(size);
+        return toPage(productRepository.findByIdGreaterThanOrderByIdAsc(
+                cursorOf(after), Limit.of(pageSize + 1)), pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductPage getProductsByCategoryPage(String category, Long after, int size) {
+        int pageSize = clampPageSize(size);
+        return toPage(productRepository.findByCategoryAndIdGreaterThanOrderByIdAsc(
+                category, cursorOf(after), Limit.of(pageSize + 1)), pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductPage getAvailableProductsPage(Long after, int size) {
+        int pageSize = clampPageSize(size);
+        return toPage(productRepository.findByAvailableTrueAndIdGreaterThanOrderByIdAsc(
+                cursorOf(after), Limit.of(pageSize + 1)), pageSize);
+    }
+    
+    /**
+     * Walks the catalog through a forward-only cursor, handing each product to the consumer as it is read
+     */
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<ProductDTO> consumer) {
+        try (Stream<ProductDTO> products = productRepository.streamAll()) {
+            products.forEach(consumer);
+        }
+    }
+    
+    /**
+     * Compact replication snapshot for other services, streamed like {@link #streamAllProducts}
+     */
+    @Transactional(readOnly = true)
+    public void streamSnapshots(Consumer<ProductSnapshot> consumer) {
+        try (Stream<ProductSnapshot> snapshots = productRepository.streamSnapshots()) {
+            snapshots.forEach(consumer);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamProductsByCategory(String category, Consumer<ProductDTO> consumer) {
+        try (Stream<ProductDTO> products = productRepository.streamByCategory(category)) {
+            products.forEach(consumer);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamAvailableProducts(Consumer<ProductDTO> consumer) {
+        try (Stream<ProductDTO> products = productRepository.streamAvailable()) {
+            products.forEach(consumer);
+        }
     }
     
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = convertToEntity(productDTO);
         Product savedProduct = productRepository.save(product);
-        return convertToDTO(savedProduct);
+        ProductDTO savedDTO = convertToDTO(savedProduct);
+        publishChange(savedDTO.getId(), ProductChangeType.CREATED, savedDTO);
+        return savedDTO;
     }
     
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
+        if (hotStockService.isHot(id)) {
+            // Units sold so far count against the old level, not the one being set
+            hotStockService.flush();
+        }
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
@@ -65,8 +309,11 @@ public class ProductService {
         existingProduct.setImageUrl(productDTO.getImageUrl());
         existingProduct.setAvailable(productDTO.getAvailable());
         
-        Product updatedProduct = productRepository.save(existingProduct);
-        return convertToDTO(updatedProduct);
+        // Flush so the returned and published state carries the incremented version
+        Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+        ProductDTO updatedDTO = convertToDTO(updatedProduct);
+        publishChange(id, ProductChangeType.UPDATED, updatedDTO);
+        return updatedDTO;
     }
     
     public void deleteProduct(Long id) {
@@ -74,22 +321,178 @@ public class ProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        publishChange(id, ProductChangeType.DELETED, null);
     }
     
     public boolean updateStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        if (hotStockService.isHot(productId)) {
+            return hotStockService.tryDecrement(productId, quantity);
+        }
         
-        if (product.getStockQuantity() < quantity) {
+        // Single conditional UPDATE: concurrent checkouts cannot oversell or lose updates
+        int updated = productRepository.decrementStock(productId, quantity, LocalDateTime.now());
+        if (updated == 0) {
+            if (!productRepository.existsById(productId)) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
             return false;
         }
         
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        product.setAvailable(product.getStockQuantity() > 0);
-        productRepository.save(product);
+        productRepository.findDTOById(productId)
+                .ifPresent(product -> publishChange(productId, ProductChangeType.STOCK_CHANGED, product));
         return true;
     }
     
+    /**
+     * Decrements stock for several products in one transaction, all or nothing.
+     * Lines are merged per product and applied in ascending id order so that concurrent
+     * batches always lock rows in the same order and cannot deadlock.
+     */
+    public BatchStockUpdateResponse updateStockBatch(List<StockUpdateItem> items) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (StockUpdateItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        List<StockUpdateItem> ordered = quantities.entrySet().stream()
+                .map(entry -> new StockUpdateItem(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        
+        Set<Long> failedIds = new HashSet<>();
+        List<StockUpdateItem> databaseItems = new ArrayList<>();
+        List<StockUpdateItem> hotItems = new ArrayList<>();
+        for (StockUpdateItem item : ordered) {
+            if (!hotStockService.isHot(item.getProductId())) {
+                databaseItems.add(item);
+            } else if (hotStockService.tryDecrement(item.getProductId(), item.getQuantity())) {
+                hotItems.add(item);
+            } else {
+                failedIds.add(item.getProductId());
+            }
+        }
+        if (!hotItems.isEmpty()) {
+            // In-memory decrements are handed back unless the batch commits
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        hotItems.forEach(item -> hotStockService.restore(item.getProductId(), item.getQuantity()));
+                    }
+                }
+            });
+        }
+        
+        if (!databaseItems.isEmpty()) {
+            int[] updateCounts = productRepository.batchDecrementStock(databaseItems);
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    failedIds.add(databaseItems.get(i).getProductId());
+                }
+            }
+        }
+        
+        if (!failedIds.isEmpty()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            Set<Long> existingIds = productRepository.findAllById(failedIds).stream()
+                    .map(Product::getId)
+                    .collect(Collectors.toSet());
+            List<StockUpdateResult> results = ordered.stream()
+                    .map(item -> {
+                        if (!failedIds.contains(item.getProductId())) {
+                            return new StockUpdateResult(item.getProductId(), item.getQuantity(), false,
+                                    "Not applied: batch rolled back");
+                        }
+                        String message = existingIds.contains(item.getProductId())
+                                ? "Insufficient stock"
+                                : "Product not found with id: " + item.getProductId();
+                        return new StockUpdateResult(item.getProductId(), item.getQuantity(), false, message);
+                    })
+                    .collect(Collectors.toList());
+            return new BatchStockUpdateResponse(false, results);
+        }
+        
+        // Hot products publish their changes when the counters are written back
+        productRepository.findDTOsByIdIn(databaseItems.stream().map(StockUpdateItem::getProductId).toList())
+                .forEach(product -> publishChange(product.getId(), ProductChangeType.STOCK_CHANGED, product));
+        List<StockUpdateResult> results = ordered.stream()
+                .map(item -> new StockUpdateResult(item.getProductId(), item.getQuantity(), true, "OK"))
+                .collect(Collectors.toList());
+        return new BatchStockUpdateResponse(true, results);
+    }
+    
+    /**
+     * Runs without a transaction: leasing and settling hot stock lock the product row in
+     * transactions of their own, which must not wait on the flag update
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> setHotStock(Long productId, boolean enabled) {
+        if (enabled) {
+            hotStockService.enable(productId);
+        } else {
+            hotStockService.disable(productId);
+        }
+        Long stock = hotStockService.getStock(productId);
+        return stock != null
+                ? Map.of("productId", productId, "hotStock", true, "stock", stock)
+                : Map.of("productId", productId, "hotStock", false);
+    }
+    
+    private ProductPage toPage(List<Product> products, int pageSize) {
+        boolean hasMore = products.size() > pageSize;
+        List<ProductDTO> items = products.stream()
+                .limit(pageSize)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new ProductPage(items, nextCursor, hasMore);
+    }
+    
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+    
+    private long cursorOf(Long after) {
+        return after != null ? after : 0L;
+    }
+    
+    private void publishChange(Long productId, ProductChangeType changeType, ProductDTO product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, changeType, product));
+    }
+    
+    /**
+     * Serves the key from the cache, or loads it once for all concurrent callers and caches
+     * the result unless the key was evicted while it was loading. A load served by a replica
+     * counts as started as far back as the replica may lag, so a change it may have missed
+     * keeps it out of the cache.
+     * @param uncached applied to a loaded value that could not be cached
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readThrough(String cacheName, Object key, String query, Supplier<T> loader,
+                              UnaryOperator<T> uncached) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        return singleFlight.execute(query, key, () -> {
+            long loadStart = fillGuard.begin(routingDataSource.readStaleness());
+            T value = loader.get();
+            return cache != null && fillGuard.put(cache, key, value, loadStart) ? value : uncached.apply(value);
+        });
+    }
+    
+    /**
+     * Lists carry the catalog tag read before they were loaded, so the tag never claims a
+     * newer state than the list holds; a list that lost a race with a change carries none
+     */
+    private Tagged<List<ProductDTO>> readThroughList(String key, String query, Supplier<List<ProductDTO>> loader) {
+        return readThrough(CacheConfig.PRODUCT_LISTS_CACHE, key, query,
+                () -> {
+                    String etag = catalogVersions.catalogETag();
+                    return new Tagged<>(etag, loader.get());
+                },
+                list -> new Tagged<>(null, list.value()));
+    }
+    
     private ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
@@ -100,6 +503,8 @@ public class ProductService {
         dto.setStockQuantity(product.getStockQuantity());
         dto.setImageUrl(product.getImageUrl());
         dto.setAvailable(product.getAvailable());
+        dto.setReservedQuantity(product.getReservedQuantity() - product.getHotLeased());
+        dto.setVersion(product.getVersion());
         return dto;
     }
     
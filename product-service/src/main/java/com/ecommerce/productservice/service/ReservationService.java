@@ -0,0 +1,436 @@
+package com.ecommerce.productservice.service;
+
+import com.ecommerce.productservice.dto.ReservationRequest;
+import com.ecommerce.productservice.dto.ReservationResponse;
+import com.ecommerce.productservice.dto.StockUpdateItem;
+import com.ecommerce.productservice.dto.StockUpdateResult;
+import com.ecommerce.productservice.event.ProductChangeType;
+import com.ecommerce.productservice.event.ProductChangedEvent;
+import com.ecommerce.productservice.inventory.HotStockService;
+import com.ecommerce.productservice.model.Product;
+import com.ecommerce.productservice.model.ReservationStatus;
+import com.ecommerce.productservice.model.StockReservation;
+import com.ecommerce.productservice.repository.ProductRepository;
+import com.ecommerce.productservice.repository.StockReservationRepository;
+import com.ecommerce.productservice.reservation.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited stock holds between order creation and delivery.
+ * A hold increments {@code products.reserved_quantity} (or, for hot products, takes the
+ * units from the in-memory counter), so available-to-sell is simply stock minus reserved.
+ * Delivery commits the holds, cancellation releases them, and holds that outlive their
+ * TTL are released by a timing wheel.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final HotStockService hotStockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${product.reservation.ttl:72h}")
+    private Duration defaultTtl;
+
+    @Value("${product.reservation.wheel.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${product.reservation.wheel.size:3600}")
+    private int wheelSize;
+
+    private TimingWheel timingWheel;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTimingWheel() {
+        timingWheel = new TimingWheel(tickMillis, wheelSize, this::expire);
+        List<StockReservation> active = reservationRepository.findByStatus(ReservationStatus.ACTIVE);
+        active.forEach(this::scheduleExpiry);
+        timingWheel.start();
+        log.info("Reservation timing wheel started with {} active holds", active.size());
+    }
+
+    @PreDestroy
+    public void stopTimingWheel() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+    }
+
+    /**
+     * Holds stock for every line of an order, all or nothing.
+     * Repeating the call for an order that already has holds returns the existing ones; when
+     * two calls for the same order race, the unique (order, product) key lets only one insert
+     * its holds and the other rolls back and answers with them.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationResponse reserve(ReservationRequest request) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            return transaction.execute(status -> reserve(request, status));
+        } catch (DataIntegrityViolationException e) {
+            List<StockReservation> winner = transaction.execute(status ->
+                    reservationRepository.findByOrderId(request.getOrderId()));
+            if (winner == null || winner.isEmpty()) {
+                throw e;
+            }
+            log.info("Concurrent reservation for order {} won, returning its holds", request.getOrderId());
+            return toResponse(request.getOrderId(), winner);
+        }
+    }
+
+    private ReservationResponse reserve(ReservationRequest request, TransactionStatus status) {
+        List<StockReservation> existing = reservationRepository.findByOrderId(request.getOrderId());
+        if (!existing.isEmpty()) {
+            return toResponse(request.getOrderId(), existing);
+        }
+
+        // Merge lines and lock rows in ascending id order, as for batch stock updates
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        request.getItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+
+        Set<Long> failedIds = new HashSet<>();
+        List<StockUpdateItem> heldItems = new ArrayList<>();
+        List<StockUpdateItem> deductedItems = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            StockUpdateItem item = new StockUpdateItem(productId, quantity);
+            if (!hotStockService.isHot(productId)) {
+                heldItems.add(item);
+            } else if (hotStockService.tryDecrement(productId, quantity)) {
+                deductedItems.add(item);
+            } else {
+                failedIds.add(productId);
+            }
+        });
+        restoreHotStockOnRollback(deductedItems);
+
+        if (!heldItems.isEmpty()) {
+            int[] counts = productRepository.batchReserveStock(heldItems);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    failedIds.add(heldItems.get(i).getProductId());
+                }
+            }
+        }
+
+        if (!failedIds.isEmpty()) {
+            status.setRollbackOnly();
+            Set<Long> existingIds = productRepository.findAllById(failedIds).stream()
+                    .map(Product::getId)
+                    .collect(Collectors.toSet());
+            List<StockUpdateResult> results = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                String message;
+                if (!failedIds.contains(productId)) {
+                    message = "Not reserved: reservation rolled back";
+                } else if (existingIds.contains(productId)) {
+                    message = "Insufficient stock";
+                } else {
+                    message = "Product not found with id: " + productId;
+                }
+                results.add(new StockUpdateResult(productId, quantity, false, message));
+            });
+            return new ReservationResponse(request.getOrderId(), false, null, results);
+        }
+
+        Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultTtl;
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        List<StockReservation> reservations = new ArrayList<>();
+        heldItems.forEach(item -> reservations.add(newReservation(request.getOrderId(), item, false, expiresAt)));
+        deductedItems.forEach(item -> reservations.add(newReservation(request.getOrderId(), item, true, expiresAt)));
+        List<StockReservation> saved = reservationRepository.saveAll(reservations);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                saved.forEach(ReservationService.this::scheduleExpiry);
+            }
+        });
+        publishStockChanges(heldItems);
+
+        log.info("Reserved {} lines for order {} until {}", saved.size(), request.getOrderId(), expiresAt);
+        return toResponse(request.getOrderId(), saved);
+    }
+
+    /**
+     * Converts the order's holds into sold stock. Holds that already expired are
+     * re-acquired from available stock where possible.
+     */
+    public ReservationResponse commit(Long orderId) {
+        List<StockReservation> reservations = reservationRepository.findByOrderId(orderId);
+        if (reservations.isEmpty()) {
+            return new ReservationResponse(orderId, false, null, List.of(
+                    new StockUpdateResult(null, null, false, "No reservation found for order: " + orderId)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockUpdateResult> results = new ArrayList<>();
+        List<StockReservation> committedHolds = new ArrayList<>();
+        List<StockReservation> expiredHolds = new ArrayList<>();
+        for (StockReservation reservation : reservations) {
+            if (transition(reservation, ReservationStatus.ACTIVE, ReservationStatus.COMMITTED, now)) {
+                committedHolds.add(reservation);
+            } else if (reservation.getStatus() == ReservationStatus.EXPIRED) {
+                expiredHolds.add(reservation);
+            } else {
+                boolean alreadyCommitted = reservation.getStatus() == ReservationStatus.COMMITTED;
+                results.add(new StockUpdateResult(reservation.getProductId(), reservation.getQuantity(),
+                        alreadyCommitted, "Reservation is " + reservation.getStatus()));
+            }
+        }
+
+        List<StockUpdateItem> heldItems = aggregate(committedHolds.stream()
+                .filter(reservation -> !reservation.getDeducted()));
+        if (!heldItems.isEmpty()) {
+            productRepository.batchCommitReservedStock(heldItems);
+        }
+        committedHolds.forEach(reservation -> results.add(new StockUpdateResult(
+                reservation.getProductId(), reservation.getQuantity(), true, "OK")));
+        cancelExpiryOnCommit(committedHolds);
+
+        // Expired holds no longer protect their units: take them from available stock if still there.
+        // A hold only becomes COMMITTED once its units are taken, so a retry tries again until they are.
+        List<StockUpdateItem> changed = new ArrayList<>(heldItems);
+        for (StockReservation reservation : expiredHolds) {
+            StockUpdateItem item = new StockUpdateItem(reservation.getProductId(), reservation.getQuantity());
+            boolean taken;
+            if (hotStockService.isHot(item.getProductId())) {
+                taken = hotStockService.tryDecrement(item.getProductId(), item.getQuantity());
+                if (taken) {
+                    restoreHotStockOnRollback(List.of(item));
+                }
+            } else {
+                taken = productRepository.decrementStock(item.getProductId(), item.getQuantity(), now) == 1;
+            }
+            if (taken && !transition(reservation, ReservationStatus.EXPIRED, ReservationStatus.COMMITTED, now)) {
+                // A concurrent commit got there first; roll back so the units are not taken twice
+                throw new IllegalStateException("Reservation " + reservation.getId() + " of order " + orderId
+                        + " was committed concurrently");
+            }
+            if (taken) {
+                changed.add(item);
+            }
+            results.add(new StockUpdateResult(item.getProductId(), item.getQuantity(), taken,
+                    taken ? "OK: reservation had expired" : "Reservation expired and stock is no longer available"));
+        }
+        publishStockChanges(changed);
+
+        boolean success = results.stream().allMatch(StockUpdateResult::isSuccess);
+        return new ReservationResponse(orderId, success, null, results);
+    }
+
+    /**
+     * Returns the order's active holds to available stock. Succeeds only if this call
+     * released something; each line reports whether it still holds stock, so a release that
+     * finds its holds already released or expired fails with every line successful.
+     */
+    public ReservationResponse release(Long orderId) {
+        List<StockReservation> reservations = reservationRepository.findByOrderId(orderId);
+        if (reservations.isEmpty()) {
+            return new ReservationResponse(orderId, false, null, List.of(
+                    new StockUpdateResult(null, null, false, "No reservation found for order: " + orderId)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> released = reservations.stream()
+                .filter(reservation -> transition(reservation, ReservationStatus.ACTIVE, ReservationStatus.RELEASED, now))
+                .collect(Collectors.toList());
+        returnStock(released);
+        cancelExpiryOnCommit(released);
+
+        List<StockUpdateResult> results = reservations.stream()
+                .map(reservation -> new StockUpdateResult(reservation.getProductId(), reservation.getQuantity(),
+                        reservation.getStatus() != ReservationStatus.COMMITTED,
+                        released.contains(reservation) ? "Released" : "Reservation is " + reservation.getStatus()))
+                .collect(Collectors.toList());
+        log.info("Released {} holds for order {}", released.size(), orderId);
+        return new ReservationResponse(orderId, !released.isEmpty(), null, results);
+    }
+
+    /**
+     * Safety net for holds whose timers live on another replica that went away
+     */
+    @Scheduled(fixedDelayString = "${product.reservation.sweep-interval-ms:300000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void sweepExpired() {
+        List<Long> overdue = reservationRepository
+                .findByStatusAndExpiresAtBefore(ReservationStatus.ACTIVE, LocalDateTime.now(), Limit.of(500))
+                .stream()
+                .map(StockReservation::getId)
+                .collect(Collectors.toList());
+        if (!overdue.isEmpty()) {
+            expire(overdue);
+        }
+    }
+
+    /**
+     * Timing wheel callback; runs on the wheel thread, hence the explicit transaction
+     */
+    private void expire(List<Long> reservationIds) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<StockReservation> expired = reservationRepository
+                        .findByIdInAndStatus(reservationIds, ReservationStatus.ACTIVE).stream()
+                        .filter(reservation -> !reservation.getExpiresAt().isAfter(now))
+                        .filter(reservation -> transition(reservation, ReservationStatus.ACTIVE, ReservationStatus.EXPIRED, now))
+                        .collect(Collectors.toList());
+                returnStock(expired);
+                if (!expired.isEmpty()) {
+                    log.info("Expired {} stock holds", expired.size());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to expire {} stock holds, the sweep will retry: {}", reservationIds.size(), e.getMessage());
+        }
+    }
+
+    private void returnStock(List<StockReservation> reservations) {
+        List<StockUpdateItem> heldItems = aggregate(reservations.stream()
+                .filter(reservation -> !reservation.getDeducted()));
+        if (!heldItems.isEmpty()) {
+            productRepository.batchReleaseReservedStock(heldItems);
+        }
+
+        List<StockUpdateItem> restocked = new ArrayList<>();
+        for (StockUpdateItem item : aggregate(reservations.stream().filter(StockReservation::getDeducted))) {
+            if (hotStockService.isHot(item.getProductId())) {
+                restoreHotStockOnCommit(item);
+            } else {
+                // The product left hot mode after the hold was taken: units were already written back
+                restocked.add(new StockUpdateItem(item.getProductId(), -item.getQuantity()));
+            }
+        }
+        if (!restocked.isEmpty()) {
+            productRepository.batchApplyStockDecrements(restocked);
+        }
+
+        List<StockUpdateItem> changed = new ArrayList<>(heldItems);
+        changed.addAll(restocked);
+        publishStockChanges(changed);
+    }
+
+    private boolean transition(StockReservation reservation, ReservationStatus from, ReservationStatus to,
+                               LocalDateTime now) {
+        if (reservation.getStatus() != from) {
+            return false;
+        }
+        if (reservationRepository.transition(reservation.getId(), from, to, now) == 1) {
+            reservation.setStatus(to);
+            return true;
+        }
+        return false;
+    }
+
+    private void scheduleExpiry(StockReservation reservation) {
+        if (timingWheel != null) {
+            long deadline = reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            timingWheel.schedule(reservation.getId(), deadline);
+        }
+    }
+
+    private void cancelExpiryOnCommit(List<StockReservation> reservations) {
+        if (reservations.isEmpty() || timingWheel == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reservations.forEach(reservation -> timingWheel.cancel(reservation.getId()));
+            }
+        });
+    }
+
+    private void restoreHotStockOnRollback(List<StockUpdateItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    items.forEach(item -> hotStockService.restore(item.getProductId(), item.getQuantity()));
+                }
+            }
+        });
+    }
+
+    private void restoreHotStockOnCommit(StockUpdateItem item) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hotStockService.restore(item.getProductId(), item.getQuantity());
+            }
+        });
+    }
+
+    private void publishStockChanges(List<StockUpdateItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<Long> productIds = items.stream().map(StockUpdateItem::getProductId).collect(Collectors.toSet());
+        productRepository.findDTOsByIdIn(productIds).forEach(product -> eventPublisher.publishEvent(
+                new ProductChangedEvent(product.getId(), ProductChangeType.STOCK_CHANGED, product)));
+    }
+
+    private static List<StockUpdateItem> aggregate(java.util.stream.Stream<StockReservation> reservations) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        reservations.forEach(reservation -> quantities.merge(
+                reservation.getProductId(), reservation.getQuantity(), Integer::sum));
+        return quantities.entrySet().stream()
+                .map(entry -> new StockUpdateItem(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static StockReservation newReservation(Long orderId, StockUpdateItem item, boolean deducted,
+                                                   LocalDateTime expiresAt) {
+        StockReservation reservation = new StockReservation();
+        reservation.setOrderId(orderId);
+        reservation.setProductId(item.getProductId());
+        reservation.setQuantity(item.getQuantity());
+        reservation.setStatus(ReservationStatus.ACTIVE);
+        reservation.setDeducted(deducted);
+        reservation.setExpiresAt(expiresAt);
+        return reservation;
+    }
+
+    private static ReservationResponse toResponse(Long orderId, List<StockReservation> reservations) {
+        LocalDateTime expiresAt = reservations.stream()
+                .map(StockReservation::getExpiresAt)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        List<StockUpdateResult> results = reservations.stream()
+                .map(reservation -> new StockUpdateResult(reservation.getProductId(), reservation.getQuantity(),
+                        reservation.getStatus() == ReservationStatus.ACTIVE, "Reservation is " + reservation.getStatus()))
+                .collect(Collectors.toList());
+        boolean success = reservations.stream().allMatch(r -> r.getStatus() == ReservationStatus.ACTIVE);
+        return new ReservationResponse(orderId, success, expiresAt, results);
+    }
+}
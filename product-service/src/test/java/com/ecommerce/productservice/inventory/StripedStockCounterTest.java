@@ -0,0 +1,143 @@
+package com.ecommerce.productservice.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races many threads on one counter; units taken plus units left must always add up to what was put in.
+ */
+class StripedStockCounterTest {
+    
+    private static final int STRIPES = 16;
+    private static final int THREADS = 32;
+    
+    @Test
+    void concurrentDecrementsNeverGoBelowZero() throws Exception {
+        long initialStock = 10_000;
+        StripedStockCounter counter = new StripedStockCounter(initialStock, STRIPES);
+        AtomicLong taken = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong lowest = new AtomicLong(Long.MAX_VALUE);
+        
+        Thread watcher = new Thread(() -> {
+            while (running.get()) {
+                lowest.accumulateAndGet(counter.get(), Math::min);
+            }
+        });
+        watcher.start();
+        
+        runConcurrently(thread -> {
+            int quantity = thread % 5 + 1;
+            // Failures can be transient while another thread holds borrowed units, so keep going for a while
+            for (int i = 0; i < 2_000; i++) {
+                if (counter.tryDecrement(quantity)) {
+                    taken.addAndGet(quantity);
+                }
+            }
+        });
+        running.set(false);
+        watcher.join();
+        
+        assertTrue(counter.get() >= 0);
+        assertTrue(lowest.get() >= 0);
+        assertEquals(initialStock, taken.get() + counter.get());
+    }
+    
+    @Test
+    void lastUnitsGoToExactlyOneCaller() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(THREADS / 2, STRIPES);
+        AtomicLong taken = new AtomicLong();
+        
+        runConcurrently(thread -> {
+            if (counter.tryDecrement(1)) {
+                taken.incrementAndGet();
+            }
+        });
+        
+        assertEquals(THREADS / 2, taken.get());
+        assertEquals(0, counter.get());
+        assertFalse(counter.tryDecrement(1));
+    }
+    
+    @Test
+    void decrementBorrowsFromSiblingStripes() {
+        StripedStockCounter counter = new StripedStockCounter(STRIPES * 10, STRIPES);
+        
+        assertTrue(counter.tryDecrement(STRIPES * 10 - 1));
+        assertEquals(1, counter.get());
+    }
+    
+    @Test
+    void failedDecrementHandsBorrowedUnitsBack() {
+        StripedStockCounter counter = new StripedStockCounter(STRIPES * 10, STRIPES);
+        
+        assertFalse(counter.tryDecrement(STRIPES * 10 + 1));
+        assertEquals(STRIPES * 10, counter.get());
+        assertTrue(counter.tryDecrement(STRIPES * 10));
+        assertEquals(0, counter.get());
+    }
+    
+    @Test
+    void addedUnitsCanBeDecremented() {
+        StripedStockCounter counter = new StripedStockCounter(0, STRIPES);
+        
+        assertFalse(counter.tryDecrement(1));
+        counter.add(5);
+        assertTrue(counter.tryDecrement(5));
+        assertEquals(0, counter.get());
+    }
+    
+    @Test
+    void drainRacingDecrementsAccountsForEveryUnit() throws Exception {
+        long initialStock = 50_000;
+        StripedStockCounter counter = new StripedStockCounter(initialStock, STRIPES);
+        AtomicLong taken = new AtomicLong();
+        AtomicLong drained = new AtomicLong();
+        
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                drained.set(counter.drain());
+                return;
+            }
+            for (int i = 0; i < 1_000; i++) {
+                if (counter.tryDecrement(2)) {
+                    taken.addAndGet(2);
+                }
+            }
+        });
+        
+        // Decrements that lost the race fail; none can take a unit the drain also returned
+        assertEquals(initialStock, taken.get() + drained.get() + counter.get());
+        assertTrue(counter.get() >= 0);
+    }
+    
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+    
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
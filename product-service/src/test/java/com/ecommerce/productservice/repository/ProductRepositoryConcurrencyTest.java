@@ -0,0 +1,110 @@
+package com.ecommerce.productservice.repository;
+
+import com.ecommerce.productservice.dto.StockUpdateItem;
+import com.ecommerce.productservice.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a single SKU with concurrent decrements; every thread commits its own transaction.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:products;MODE=PostgreSQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRepositoryConcurrencyTest {
+    
+    private static final int INITIAL_STOCK = 100;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        Long productId = productRepository.save(newProduct(INITIAL_STOCK)).getId();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (productRepository.decrementStock(productId, 1, LocalDateTime.now()) == 1) {
+                        successes.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(INITIAL_STOCK, successes.get());
+        assertEquals(0, product.getStockQuantity());
+        assertFalse(product.getAvailable());
+    }
+    
+    @Test
+    void decrementIsRejectedWhenStockIsInsufficient() {
+        Long productId = productRepository.save(newProduct(3)).getId();
+        
+        assertEquals(0, productRepository.decrementStock(productId, 5, LocalDateTime.now()));
+        assertEquals(1, productRepository.decrementStock(productId, 2, LocalDateTime.now()));
+        
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(1, product.getStockQuantity());
+        assertTrue(product.getAvailable());
+    }
+    
+    @Test
+    void batchDecrementAppliesEachLineConditionally() {
+        Long first = productRepository.save(newProduct(10)).getId();
+        Long second = productRepository.save(newProduct(1)).getId();
+        
+        int[] counts = productRepository.batchDecrementStock(List.of(
+                new StockUpdateItem(first, 4),
+                new StockUpdateItem(second, 2)));
+        
+        assertArrayEquals(new int[]{1, 0}, counts);
+        assertEquals(6, productRepository.findById(first).orElseThrow().getStockQuantity());
+        assertEquals(1, productRepository.findById(second).orElseThrow().getStockQuantity());
+    }
+    
+    private Product newProduct(int stock) {
+        Product product = new Product();
+        product.setName("Flash Sale Item");
+        product.setDescription("Limited drop");
+        product.setPrice(new BigDecimal("19.99"));
+        product.setCategory("Sale");
+        product.setStockQuantity(stock);
+        product.setAvailable(true);
+        return product;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.productservice.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the wheel by hand: the clock only moves when a test moves it, and every tick is an explicit advance().
+ */
+class TimingWheelTest {
+    
+    private static final long START = 1_000_000L;
+    private static final long TICK = 100;
+    private static final int SIZE = 8;
+    
+    private final AtomicLong clock = new AtomicLong(START);
+    private final List<Long> expired = new ArrayList<>();
+    private final TimingWheel wheel = new TimingWheel(TICK, SIZE, expired::addAll, clock::get);
+    
+    @Test
+    void timerExpiresOnceItsDeadlinePasses() {
+        wheel.schedule(1, START + 250);
+        
+        advanceTo(START + 200);
+        assertEquals(List.of(), expired);
+        
+        advanceTo(START + 300);
+        assertEquals(List.of(1L), expired);
+        
+        advanceTo(START + 400);
+        assertEquals(List.of(1L), expired);
+    }
+    
+    @Test
+    void timerFurtherThanOneRevolutionWaitsForItsRevolution() {
+        // Lands in the same bucket as tick 2, which comes round once before the deadline
+        wheel.schedule(2, START + (SIZE + 2) * TICK);
+        
+        advanceTo(START + 3 * TICK);
+        assertEquals(List.of(), expired);
+        
+        advanceTo(START + (SIZE + 1) * TICK);
+        assertEquals(List.of(), expired);
+        
+        advanceTo(START + (SIZE + 2) * TICK);
+        assertEquals(List.of(2L), expired);
+    }
+    
+    @Test
+    void timersScheduledAfterTheWheelWrappedLandInTheRightBucket() {
+        advanceTo(START + (3 * SIZE + 5) * TICK);
+        wheel.schedule(3, START + (3 * SIZE + 7) * TICK);
+        wheel.schedule(4, START + (4 * SIZE + 1) * TICK);
+        
+        advanceTo(START + (3 * SIZE + 7) * TICK);
+        assertEquals(List.of(3L), expired);
+        
+        advanceTo(START + (4 * SIZE + 1) * TICK);
+        assertEquals(List.of(3L, 4L), expired);
+    }
+    
+    @Test
+    void timerPastItsDeadlineExpiresWithoutWaitingForARevolution() {
+        advanceTo(START + 5 * TICK);
+        wheel.schedule(5, START);
+        
+        // Goes one tick past the next so that it cannot land in a bucket the ticker is draining
+        advanceTo(START + 7 * TICK);
+        assertEquals(List.of(5L), expired);
+    }
+    
+    @Test
+    void cancelledTimerNeverExpires() {
+        wheel.schedule(6, START + 150);
+        wheel.schedule(7, START + 150);
+        wheel.cancel(6);
+        
+        advanceTo(START + SIZE * TICK * 2);
+        assertEquals(List.of(7L), expired);
+    }
+    
+    @Test
+    void reschedulingReplacesTheEarlierTimer() {
+        wheel.schedule(8, START + 150);
+        wheel.schedule(8, START + (SIZE + 3) * TICK);
+        
+        advanceTo(START + 5 * TICK);
+        assertEquals(List.of(), expired);
+        
+        advanceTo(START + (SIZE + 3) * TICK);
+        assertEquals(List.of(8L), expired);
+    }
+    
+    @Test
+    void timersSharingABucketExpireIndependently() {
+        wheel.schedule(9, START + 2 * TICK);
+        wheel.schedule(10, START + (SIZE + 2) * TICK);
+        wheel.schedule(11, START + 2 * TICK);
+        
+        advanceTo(START + 2 * TICK);
+        assertEquals(List.of(9L, 11L), expired);
+        
+        advanceTo(START + (SIZE + 2) * TICK);
+        assertEquals(List.of(9L, 11L, 10L), expired);
+    }
+    
+    private void advanceTo(long millis) {
+        clock.set(millis);
+        wheel.advance();
+    }
+}